@@ -0,0 +1,112 @@
+package com.github.fabbaraujo.libraryapi.api.async;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+@Slf4j
+@Component
+public class DatabaseTaskRunner implements MeterBinder {
+
+    private static final String UNAVAILABLE = "Database busy, try again later.";
+
+    @Value("${application.async.database.enabled:false}")
+    private boolean enabled;
+
+    @Value("${application.async.database.pool-size:${spring.datasource.hikari.maximum-pool-size:10}}")
+    private int poolSize;
+
+    @Value("${application.async.database.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${application.async.database.timeout-ms:10000}")
+    private long timeout;
+
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+
+    private ThreadPoolTaskExecutor executor;
+
+    @PostConstruct
+    public void startExecutor() {
+        if (!enabled) {
+            return;
+        }
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("database-");
+        executor.initialize();
+        log.info("async database mode enabled with {} threads and {} queued tasks", poolSize, queueCapacity);
+    }
+
+    @PreDestroy
+    public void stopExecutor() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Runs the task on the database executor, or on the calling thread when the async mode is disabled.
+     * A full queue or a task that does not finish within the timeout completes the future with a 503.
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> task) {
+        if (executor == null) {
+            return CompletableFuture.completedFuture(task.get());
+        }
+
+        CompletableFuture<T> future;
+        try {
+            future = CompletableFuture.supplyAsync(task, executor);
+        } catch (TaskRejectedException e) {
+            rejected.incrementAndGet();
+            return CompletableFuture.failedFuture(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, UNAVAILABLE));
+        }
+        return future
+                .orTimeout(timeout, TimeUnit.MILLISECONDS)
+                .exceptionally(e -> {
+                    if (e instanceof TimeoutException) {
+                        timedOut.incrementAndGet();
+                        throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, UNAVAILABLE);
+                    }
+                    throw e instanceof CompletionException completion ? completion : new CompletionException(e);
+                });
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    public long getTimedOutCount() {
+        return timedOut.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("library.database.executor.rejected", rejected, AtomicLong::get).register(registry);
+        FunctionCounter.builder("library.database.executor.timeouts", timedOut, AtomicLong::get).register(registry);
+        if (executor != null) {
+            new ExecutorServiceMetrics(executor.getThreadPoolExecutor(), "database", Tags.empty()).bindTo(registry);
+        }
+    }
+}
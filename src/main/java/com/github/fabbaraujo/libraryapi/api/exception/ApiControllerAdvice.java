@@ -1,6 +1,7 @@
 package com.github.fabbaraujo.libraryapi.api.exception;
 
 import com.github.fabbaraujo.libraryapi.exception.BusinessException;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
@@ -27,6 +28,12 @@ public class ApiControllerAdvice {
         return new ApiErrors(exception);
     }
 
+    @ExceptionHandler(ConcurrencyFailureException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ApiErrors handleConcurrencyFailureException(ConcurrencyFailureException exception) {
+        return new ApiErrors("Resource changed by another request, try again.");
+    }
+
     @ExceptionHandler(ResponseStatusException.class)
     public ResponseEntity handleResponseStatusException(ResponseStatusException exception) {
         return new ResponseEntity(new ApiErrors(exception), exception.getStatus());
@@ -20,6 +20,10 @@ public class ApiErrors {
         this.errors = List.of(exception.getMessage());
     }
 
+    public ApiErrors(String error) {
+        this.errors = List.of(error);
+    }
+
     public ApiErrors(ResponseStatusException exception) {
         this.errors = List.of(Objects.requireNonNull(exception.getReason()));
     }
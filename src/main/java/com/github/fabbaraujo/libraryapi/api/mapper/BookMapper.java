@@ -0,0 +1,27 @@
+package com.github.fabbaraujo.libraryapi.api.mapper;
+
+import com.github.fabbaraujo.libraryapi.api.request.BookRequest;
+import com.github.fabbaraujo.libraryapi.api.response.BookResponse;
+import com.github.fabbaraujo.libraryapi.model.entity.Book;
+import org.springframework.stereotype.Component;
+
+@Component
+public class BookMapper {
+
+    public Book toEntity(BookRequest request) {
+        return Book.builder()
+                .id(request.getId())
+                .title(request.getTitle())
+                .author(request.getAuthor())
+                .isbn(request.getIsbn())
+                .build();
+    }
+
+    public BookRequest toRequest(Book book) {
+        return new BookRequest(book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn());
+    }
+
+    public BookResponse toResponse(Book book) {
+        return new BookResponse(book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn());
+    }
+}
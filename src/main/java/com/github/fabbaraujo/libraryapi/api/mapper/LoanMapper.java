@@ -0,0 +1,23 @@
+package com.github.fabbaraujo.libraryapi.api.mapper;
+
+import com.github.fabbaraujo.libraryapi.api.response.BookResponse;
+import com.github.fabbaraujo.libraryapi.api.response.LoanResponse;
+import com.github.fabbaraujo.libraryapi.model.entity.Book;
+import com.github.fabbaraujo.libraryapi.model.entity.Loan;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class LoanMapper {
+
+    private final BookMapper bookMapper;
+
+    public LoanResponse toResponse(Loan loan) {
+        Book book = loan.getBook();
+        BookResponse bookResponse = book == null ? null : bookMapper.toResponse(book);
+        String isbn = book == null ? null : book.getIsbn();
+
+        return new LoanResponse(loan.getId(), isbn, loan.getCustomer(), loan.getCustomerEmail(), bookResponse);
+    }
+}
@@ -0,0 +1,53 @@
+package com.github.fabbaraujo.libraryapi.api.pagination;
+
+import com.github.fabbaraujo.libraryapi.exception.BusinessException;
+import com.github.fabbaraujo.libraryapi.model.repository.Keyset;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+public final class CursorCodec {
+
+    private static final String SEPARATOR = "\n";
+    private static final String NULL_VALUE = "";
+    private static final String VALUE_PREFIX = "=";
+
+    private CursorCodec() {
+    }
+
+    public static String encode(Keyset keyset) {
+        if (keyset == null) {
+            return null;
+        }
+        String raw = String.join(SEPARATOR,
+                keyset.getProperty(),
+                keyset.getDirection().name(),
+                String.valueOf(keyset.getLastId()),
+                keyset.getLastValue() == null ? NULL_VALUE : VALUE_PREFIX + keyset.getLastValue());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Keyset decode(String cursor, Sort sort) {
+        if (cursor == null || cursor.isBlank()) {
+            return Keyset.first(sort);
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(SEPARATOR, 4);
+            return new Keyset(parts[0], Sort.Direction.valueOf(parts[1]), decodeValue(parts[3]), Long.valueOf(parts[2]));
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new BusinessException("Cursor inválido.");
+        }
+    }
+
+    private static String decodeValue(String value) {
+        if (NULL_VALUE.equals(value)) {
+            return null;
+        }
+        if (!value.startsWith(VALUE_PREFIX)) {
+            throw new IllegalArgumentException("Unexpected cursor value: " + value);
+        }
+        return value.substring(VALUE_PREFIX.length());
+    }
+}
@@ -13,4 +13,5 @@ public class LoanFilterRequest {
 
     private String isbn;
     private String customer;
+    private boolean history;
 }
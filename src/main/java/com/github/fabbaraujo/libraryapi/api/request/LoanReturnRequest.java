@@ -0,0 +1,26 @@
+package com.github.fabbaraujo.libraryapi.api.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanReturnRequest {
+
+    @Builder.Default
+    @Size(max = 1000)
+    private List<@NotNull Long> ids = new ArrayList<>();
+
+    @Builder.Default
+    @Size(max = 1000)
+    private List<@NotNull String> isbns = new ArrayList<>();
+}
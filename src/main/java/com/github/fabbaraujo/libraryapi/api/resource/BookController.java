@@ -1,28 +1,52 @@
 package com.github.fabbaraujo.libraryapi.api.resource;
 
+import com.github.fabbaraujo.libraryapi.api.async.DatabaseTaskRunner;
+import com.github.fabbaraujo.libraryapi.api.export.NdjsonWriter;
+import com.github.fabbaraujo.libraryapi.api.mapper.BookMapper;
+import com.github.fabbaraujo.libraryapi.api.pagination.CursorCodec;
+import com.github.fabbaraujo.libraryapi.api.pagination.CursorPage;
 import com.github.fabbaraujo.libraryapi.api.request.BookRequest;
+import com.github.fabbaraujo.libraryapi.api.response.BookImportResult;
 import com.github.fabbaraujo.libraryapi.api.response.BookResponse;
 import com.github.fabbaraujo.libraryapi.api.response.LoanResponse;
 import com.github.fabbaraujo.libraryapi.model.entity.Book;
-import com.github.fabbaraujo.libraryapi.model.entity.Loan;
+import com.github.fabbaraujo.libraryapi.model.repository.Keyset;
+import com.github.fabbaraujo.libraryapi.model.repository.KeysetPage;
 import com.github.fabbaraujo.libraryapi.service.BookService;
 import com.github.fabbaraujo.libraryapi.service.LoanService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.ConstraintViolation;
 import javax.validation.Valid;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/books")
@@ -33,28 +57,85 @@ public class BookController {
 
     private final BookService service;
     private final LoanService loanService;
-    private final ModelMapper mapper;
+    private final BookMapper bookMapper;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final DatabaseTaskRunner databaseTasks;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     @ApiOperation("Creates a book")
     public BookRequest create(@RequestBody @Valid BookRequest request) {
         log.info("creating a book for isbn: {}", request.getIsbn());
-        Book entity = mapper.map(request, Book.class);
+        Book entity = bookMapper.toEntity(request);
 
         entity = service.save(entity);
 
-        return mapper.map(entity, BookRequest.class);
+        return bookMapper.toRequest(entity);
+    }
+
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @ApiOperation("Creates books in batch from a json array")
+    public List<BookImportResult> createBatch(@RequestBody List<BookRequest> requests) {
+        if (requests.contains(null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "O lote não pode conter itens nulos.");
+        }
+        log.info("creating {} books in batch", requests.size());
+        return importBooks(requests);
+    }
+
+    @PostMapping(value = "/batch", consumes = NdjsonWriter.MEDIA_TYPE)
+    @ApiOperation("Creates books in batch from newline delimited json")
+    public List<BookImportResult> createBatchFromNdjson(InputStream body) throws IOException {
+        List<BookRequest> requests = new ArrayList<>();
+        List<BookImportResult> unreadable = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    BookRequest request = objectMapper.readValue(line, BookRequest.class);
+                    if (request == null) {
+                        unreadable.add(invalidResult(requests.size(), null, "Linha inválida: item nulo."));
+                    }
+                    requests.add(request);
+                } catch (JsonProcessingException e) {
+                    unreadable.add(invalidResult(requests.size(), null, "Linha inválida: " + e.getOriginalMessage()));
+                    requests.add(null);
+                }
+            }
+        }
+        log.info("creating {} books in batch", requests.size());
+        List<BookImportResult> results = importBooks(requests);
+        unreadable.forEach(result -> results.set(result.getIndex(), result));
+        return results;
+    }
+
+    @GetMapping(value = "/export", produces = NdjsonWriter.MEDIA_TYPE)
+    @ApiOperation("Exports the full catalog as newline delimited json")
+    public void export(HttpServletResponse response) throws IOException {
+        log.info("exporting the full catalog");
+        response.setContentType(NdjsonWriter.MEDIA_TYPE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        try (NdjsonWriter writer = new NdjsonWriter(objectMapper, response.getOutputStream())) {
+            service.exportAll(writer::write);
+        }
     }
 
     @GetMapping("/{id}")
     @ApiOperation("Obtains a book details by id")
-    public BookResponse getBookById(@PathVariable Long id) {
+    public BookResponse getBookById(@PathVariable Long id, WebRequest webRequest) {
         log.info("obtaining details for book by id: {}", id);
-        return service
-                .getById(id)
-                .map(book -> mapper.map(book, BookResponse.class))
+        Book book = service
+                .getCurrentById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        if (webRequest.checkNotModified(String.valueOf(book.getVersion()))) {
+            return null;
+        }
+
+        return bookMapper.toResponse(book);
     }
 
     @DeleteMapping("/{id}")
@@ -81,40 +162,121 @@ public class BookController {
                     book.setAuthor(request.getAuthor());
                     book.setTitle(request.getTitle());
                     book = service.update(book);
-                    return mapper.map(book, BookResponse.class);
+                    return bookMapper.toResponse(book);
                 })
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
     }
 
     @GetMapping
-    @ApiOperation("Find books by params")
-    public Page<BookResponse> find(BookRequest request, Pageable pageRequest) {
-        Book filter = mapper.map(request, Book.class);
-        Page<Book> result = service.find(filter, pageRequest);
+    @ApiOperation("Find books by params, skipping the total count when count=false")
+    public CompletableFuture<ResponseEntity<Slice<BookResponse>>> find(BookRequest request,
+                                                                       @RequestParam(required = false) Boolean available,
+                                                                       @RequestParam(defaultValue = "true") boolean count,
+                                                                       Pageable pageRequest,
+                                                                       @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Book filter = bookMapper.toEntity(request);
+        filter.setAvailable(available);
+        return databaseTasks.supply(() -> {
+            // Read before the page: a write landing in between leaves an older tag on newer content, never the reverse.
+            String etag = "\"" + service.getCollectionVersion() + "\"";
+            if (ifNoneMatch != null && matchesEtag(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).<Slice<BookResponse>>build();
+            }
+            return ResponseEntity.ok().eTag(etag).body(count
+                    ? service.findResponses(filter, pageRequest)
+                    : service.findResponseSlice(filter, pageRequest));
+        });
+    }
 
-        List<BookResponse> list = result.getContent().stream()
-                .map(entity -> mapper.map(entity, BookResponse.class)).toList();
+    @GetMapping(params = "cursor")
+    @ApiOperation("Find books by params using cursor pagination")
+    public CompletableFuture<CursorPage<BookResponse>> findByCursor(BookRequest request,
+                                                                    @RequestParam String cursor,
+                                                                    @RequestParam(defaultValue = "20") int size,
+                                                                    Sort sort) {
+        Book filter = bookMapper.toEntity(request);
+        Keyset keyset = CursorCodec.decode(cursor, sort);
+        return databaseTasks.supply(() -> {
+            KeysetPage<Book> result = service.find(filter, keyset, Math.min(Math.max(size, 1), 1000));
 
-        return new PageImpl<>(list, pageRequest, result.getTotalElements());
+            return CursorPage.<BookResponse>builder()
+                    .content(result.getContent().stream().map(bookMapper::toResponse).toList())
+                    .size(result.getContent().size())
+                    .hasNext(result.hasNext())
+                    .nextCursor(CursorCodec.encode(result.getNext()))
+                    .build();
+        });
     }
 
     @GetMapping("/{id}/loans")
-    public Page<LoanResponse> loansByBook(@PathVariable Long id, Pageable pageable) {
+    public CompletableFuture<Slice<LoanResponse>> loansByBook(@PathVariable Long id,
+                                                              @RequestParam(defaultValue = "true") boolean count,
+                                                              @RequestParam(defaultValue = "false") boolean history,
+                                                              Pageable pageable,
+                                                              WebRequest webRequest) {
         Book book = service
                 .getById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        if (webRequest.checkNotModified(book.getVersion() + "-" + loanService.getCollectionVersionByBook(book).token())) {
+            return null;
+        }
+
+        return databaseTasks.supply(() -> count
+                ? loanService.getLoanResponsesByBook(book, history, pageable)
+                : loanService.getLoanResponseSliceByBook(book, history, pageable));
+    }
+
+    private List<BookImportResult> importBooks(List<BookRequest> requests) {
+        List<BookImportResult> results = new ArrayList<>(requests.size());
+        List<Book> books = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            BookRequest request = requests.get(i);
+            results.add(null);
+            if (request == null) {
+                continue;
+            }
+            Set<ConstraintViolation<BookRequest>> violations = validator.validate(request);
+            if (violations.isEmpty()) {
+                books.add(bookMapper.toEntity(request));
+                positions.add(i);
+            } else {
+                String message = violations.stream()
+                        .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining(", "));
+                results.set(i, invalidResult(i, request.getIsbn(), message));
+            }
+        }
+
+        List<BookImportResult> imported = service.saveAll(books);
+        for (int i = 0; i < imported.size(); i++) {
+            BookImportResult result = imported.get(i);
+            result.setIndex(positions.get(i));
+            results.set(result.getIndex(), result);
+        }
+        return results;
+    }
+
+    private static boolean matchesEtag(String ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-        Page<Loan> result = loanService.getLoansByBook(book, pageable);
-        List<LoanResponse> listResponse = result.getContent()
-                .stream()
-                .map(loan -> {
-                    Book loanBook = loan.getBook();
-                    BookResponse bookResponse = mapper.map(loanBook, BookResponse.class);
-                    LoanResponse loanResponse = mapper.map(loan, LoanResponse.class);
-                    loanResponse.setBook(bookResponse);
-                    return loanResponse;
-                }).toList();
-
-        return new PageImpl<LoanResponse>(listResponse, pageable, result.getTotalElements());
+    private BookImportResult invalidResult(int index, String isbn, String message) {
+        return BookImportResult.builder()
+                .index(index)
+                .isbn(isbn)
+                .status(BookImportResult.Status.INVALID)
+                .message(message)
+                .build();
     }
 }
@@ -1,26 +1,39 @@
 package com.github.fabbaraujo.libraryapi.api.resource;
 
-import com.github.fabbaraujo.libraryapi.api.request.BookRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.fabbaraujo.libraryapi.api.async.DatabaseTaskRunner;
+import com.github.fabbaraujo.libraryapi.api.export.NdjsonWriter;
+import com.github.fabbaraujo.libraryapi.api.mapper.LoanMapper;
+import com.github.fabbaraujo.libraryapi.api.pagination.CursorCodec;
+import com.github.fabbaraujo.libraryapi.api.pagination.CursorPage;
 import com.github.fabbaraujo.libraryapi.api.request.LoanFilterRequest;
 import com.github.fabbaraujo.libraryapi.api.request.LoanRequest;
+import com.github.fabbaraujo.libraryapi.api.request.LoanReturnRequest;
 import com.github.fabbaraujo.libraryapi.api.request.ReturnedLoanRequest;
-import com.github.fabbaraujo.libraryapi.api.response.BookResponse;
 import com.github.fabbaraujo.libraryapi.api.response.LoanResponse;
+import com.github.fabbaraujo.libraryapi.api.response.LoanReturnResult;
 import com.github.fabbaraujo.libraryapi.model.entity.Book;
 import com.github.fabbaraujo.libraryapi.model.entity.Loan;
+import com.github.fabbaraujo.libraryapi.model.repository.Keyset;
+import com.github.fabbaraujo.libraryapi.model.repository.KeysetPage;
 import com.github.fabbaraujo.libraryapi.service.BookService;
 import com.github.fabbaraujo.libraryapi.service.LoanService;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.Valid;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/loans")
@@ -29,7 +42,9 @@ public class LoanController {
 
     private final LoanService loanService;
     private final BookService bookService;
-    private final ModelMapper mapper;
+    private final LoanMapper mapper;
+    private final ObjectMapper objectMapper;
+    private final DatabaseTaskRunner databaseTasks;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -48,26 +63,62 @@ public class LoanController {
 
     @PatchMapping("/{id}")
     public void returnBook(@PathVariable Long id, @RequestBody ReturnedLoanRequest request) {
-        Loan loan = loanService.getById(id)
+        loanService.updateReturned(id, Boolean.TRUE.equals(request.getReturned()))
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
-        loan.setReturned(request.getReturned());
+    }
 
-        loanService.update(loan);
+    @PatchMapping("/returns")
+    public List<LoanReturnResult> returnBooks(@RequestBody @Valid LoanReturnRequest request) {
+        return loanService.returnAll(
+                Objects.requireNonNullElse(request.getIds(), List.of()),
+                Objects.requireNonNullElse(request.getIsbns(), List.of()));
     }
 
     @GetMapping
-    public Page<LoanResponse> find(LoanFilterRequest request, Pageable pageRequest) {
-        Page<Loan> result = loanService.find(request, pageRequest);
+    public CompletableFuture<Slice<LoanResponse>> find(LoanFilterRequest request,
+                                                       @RequestParam(defaultValue = "true") boolean count,
+                                                       Pageable pageRequest) {
+        return databaseTasks.supply(() -> count
+                ? loanService.findResponses(request, pageRequest)
+                : loanService.findResponseSlice(request, pageRequest));
+    }
+
+    @GetMapping("/customers/{customer}")
+    public CompletableFuture<Slice<LoanResponse>> findByCustomer(@PathVariable String customer,
+                                                                 @RequestParam(defaultValue = "true") boolean count,
+                                                                 @RequestParam(defaultValue = "false") boolean history,
+                                                                 Pageable pageRequest) {
+        LoanFilterRequest request = LoanFilterRequest.builder()
+                .customer(customer)
+                .history(history)
+                .build();
+        return find(request, count, pageRequest);
+    }
+
+    @GetMapping(value = "/export", produces = NdjsonWriter.MEDIA_TYPE)
+    public void export(HttpServletResponse response) throws IOException {
+        response.setContentType(NdjsonWriter.MEDIA_TYPE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        try (NdjsonWriter writer = new NdjsonWriter(objectMapper, response.getOutputStream())) {
+            loanService.exportAll(writer::write);
+        }
+    }
 
-        List<LoanResponse> list = result.getContent().stream()
-                .map(entity -> {
-                    Book book = entity.getBook();
-                    BookResponse bookResponse = mapper.map(book, BookResponse.class);
-                    LoanResponse loanResponse = mapper.map(entity, LoanResponse.class);
-                    loanResponse.setBook(bookResponse);
-                    return loanResponse;
-                }).toList();
+    @GetMapping(params = "cursor")
+    public CompletableFuture<CursorPage<LoanResponse>> findByCursor(LoanFilterRequest request,
+                                                                    @RequestParam String cursor,
+                                                                    @RequestParam(defaultValue = "20") int size,
+                                                                    Sort sort) {
+        Keyset keyset = CursorCodec.decode(cursor, sort);
+        return databaseTasks.supply(() -> {
+            KeysetPage<Loan> result = loanService.find(request, keyset, Math.min(Math.max(size, 1), 1000));
 
-        return new PageImpl<>(list, pageRequest, result.getTotalElements());
+            return CursorPage.<LoanResponse>builder()
+                    .content(result.getContent().stream().map(mapper::toResponse).toList())
+                    .size(result.getContent().size())
+                    .hasNext(result.hasNext())
+                    .nextCursor(CursorCodec.encode(result.getNext()))
+                    .build();
+        });
     }
 }
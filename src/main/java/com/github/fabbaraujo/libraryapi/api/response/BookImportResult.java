@@ -0,0 +1,26 @@
+package com.github.fabbaraujo.libraryapi.api.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookImportResult {
+
+    private int index;
+    private String isbn;
+    private Long id;
+    private Status status;
+    private String message;
+
+    public enum Status {
+        CREATED,
+        DUPLICATED,
+        INVALID,
+        FAILED
+    }
+}
@@ -16,4 +16,8 @@ public class LoanResponse {
     private String customer;
     private String customerEmail;
     private BookResponse book;
+
+    public LoanResponse(Long id, String customer, String customerEmail, Long bookId, String title, String author, String isbn) {
+        this(id, isbn, customer, customerEmail, new BookResponse(bookId, title, author, isbn));
+    }
 }
@@ -0,0 +1,24 @@
+package com.github.fabbaraujo.libraryapi.api.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanReturnResult {
+
+    private Long id;
+    private String isbn;
+    private Status status;
+    private String message;
+
+    public enum Status {
+        RETURNED,
+        ALREADY_RETURNED,
+        NOT_FOUND
+    }
+}
@@ -0,0 +1,26 @@
+package com.github.fabbaraujo.libraryapi.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.fabbaraujo.libraryapi.service.PageCountCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class CacheConfig {
+
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> pageCountsCacheCustomizer(
+            @Value("${application.pagination.count-cache.ttl-ms:30000}") long ttlMillis,
+            @Value("${application.pagination.count-cache.maximum-size:10000}") long maximumSize) {
+        return cacheManager -> cacheManager.registerCustomCache(PageCountCache.PAGE_COUNTS_CACHE, Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(ttlMillis))
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build());
+    }
+}
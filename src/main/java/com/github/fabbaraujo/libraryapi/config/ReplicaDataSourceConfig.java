@@ -0,0 +1,156 @@
+package com.github.fabbaraujo.libraryapi.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.time.Duration;
+
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "application.datasource.replica.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @FlywayDataSource
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("application.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(@Value("${application.datasource.replica.url}") String url,
+                                              @Value("${application.datasource.replica.username:}") String username,
+                                              @Value("${application.datasource.replica.password:}") String password) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource routingDataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                                      @Qualifier("replicaDataSource") DataSource replica,
+                                                      @Value("${application.datasource.replica.max-lag-ms:1000}") long maxLagMillis,
+                                                      @Value("${application.datasource.replica.max-reading-age-ms:3000}") long maxReadingAgeMillis,
+                                                      @Value("${application.datasource.replica.read-your-writes:true}") boolean readYourWrites) {
+        return new ReplicaRoutingDataSource(primary, replica, maxLagMillis, maxReadingAgeMillis, readYourWrites);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer writeStatementInspector() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new WriteStatementInspector());
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("replicaDataSource") DataSource replica,
+                                               ReplicaRoutingDataSource routingDataSource,
+                                               @Value("${application.datasource.replica.lag-query:}") String lagQuery,
+                                               @Value("${application.datasource.replica.lag-check-interval-ms:1000}") long checkIntervalMillis) {
+        return new ReplicaLagMonitor(new JdbcTemplate(replica), routingDataSource, lagQuery, checkIntervalMillis);
+    }
+
+    /**
+     * Probes the replica on a fixed delay from its own thread, so a slow probe or a busy shared scheduler cannot
+     * hold back the readings. Without a lag query only reachability is checked and the lag is treated as unknown.
+     */
+    @Slf4j
+    public static class ReplicaLagMonitor {
+
+        private final JdbcTemplate replica;
+        private final ReplicaRoutingDataSource routingDataSource;
+        private final String lagQuery;
+        private final long checkIntervalMillis;
+
+        private ThreadPoolTaskScheduler scheduler;
+
+        ReplicaLagMonitor(JdbcTemplate replica, ReplicaRoutingDataSource routingDataSource, String lagQuery,
+                          long checkIntervalMillis) {
+            this.replica = replica;
+            this.routingDataSource = routingDataSource;
+            this.lagQuery = lagQuery;
+            this.checkIntervalMillis = checkIntervalMillis;
+        }
+
+        @PostConstruct
+        public void start() {
+            scheduler = new ThreadPoolTaskScheduler();
+            scheduler.setThreadNamePrefix("replica-lag-");
+            scheduler.initialize();
+            scheduler.scheduleWithFixedDelay(this::check, Duration.ofMillis(checkIntervalMillis));
+        }
+
+        @PreDestroy
+        public void stop() {
+            scheduler.shutdown();
+        }
+
+        public void check() {
+            try {
+                if (lagQuery.isBlank()) {
+                    replica.queryForObject("select 1", Integer.class);
+                    routingDataSource.updateReplicaState(true, null);
+                } else {
+                    Number lag = replica.queryForObject(lagQuery, Number.class);
+                    routingDataSource.updateReplicaState(true, lag == null ? null : lag.longValue());
+                }
+            } catch (RuntimeException e) {
+                log.warn("replica unavailable, routing reads to the primary: {}", e.getMessage());
+                routingDataSource.updateReplicaState(false, null);
+            }
+        }
+    }
+
+    /**
+     * Reports every data changing statement Hibernate prepares, including bulk and native updates, to the routing
+     * data source so that read-your-writes only follows transactions that actually wrote.
+     */
+    static class WriteStatementInspector implements StatementInspector {
+
+        @Override
+        public String inspect(String sql) {
+            String statement = sql.stripLeading();
+            if (startsWith(statement, "insert") || startsWith(statement, "update")
+                    || startsWith(statement, "delete") || startsWith(statement, "merge")) {
+                ReplicaRoutingDataSource.recordWrite();
+            }
+            return sql;
+        }
+
+        private static boolean startsWith(String statement, String keyword) {
+            return statement.regionMatches(true, 0, keyword, 0, keyword.length());
+        }
+    }
+}
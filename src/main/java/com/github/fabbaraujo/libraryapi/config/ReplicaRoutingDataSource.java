@@ -0,0 +1,131 @@
+package com.github.fabbaraujo.libraryapi.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sends connections for read-only transactions to the replica and everything else to the primary. Reads fall back
+ * to the primary while the replica is unreachable, lagging beyond the tolerance or has not been checked recently and, with read-your-writes, while a
+ * write committed through this instance may not have reached the replica yet. Only transactions that ran a data
+ * changing statement, as reported through {@link #recordWrite()}, count as writes.
+ * <p>
+ * Must sit behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: the read-only flag
+ * of a transaction is only known after the transaction manager has asked for its connection.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Target {
+        PRIMARY,
+        REPLICA
+    }
+
+    private static final Object WRITE_TRACKED = new Object();
+    private static final Object PRIMARY_PINNED = new Object();
+
+    private final long maxLagMillis;
+    private final long maxReadingAgeMillis;
+    private final boolean readYourWrites;
+
+    private volatile boolean replicaAvailable = true;
+    private volatile Long replicaLagMillis;
+    private volatile long replicaCheckedMillis = System.currentTimeMillis();
+    private volatile long lastWriteMillis;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, long maxLagMillis, long maxReadingAgeMillis,
+                                    boolean readYourWrites) {
+        this.maxLagMillis = maxLagMillis;
+        this.maxReadingAgeMillis = maxReadingAgeMillis;
+        this.readYourWrites = readYourWrites;
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Records the latest replica lag, {@code null} when it is unknown, or marks the replica unavailable. A reading
+     * older than the maximum age counts as lagging, so reads stay on the primary while the checks are not running.
+     */
+    public void updateReplicaState(boolean available, Long lagMillis) {
+        this.replicaAvailable = available;
+        this.replicaLagMillis = lagMillis;
+        this.replicaCheckedMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Sends every connection of the current transaction to the primary, read-only or not. Used where a read must
+     * not lag behind the primary, such as one whose result fills a shared cache.
+     */
+    public static void pinToPrimary() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(PRIMARY_PINNED)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(PRIMARY_PINNED, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(PRIMARY_PINNED);
+            }
+        });
+    }
+
+    /**
+     * Marks the current transaction as one that changed data, so that its commit holds reads on the primary under
+     * read-your-writes. Called for every data changing statement; transactions that only read are not recorded.
+     */
+    public static void recordWrite() {
+        if (TransactionSynchronizationManager.getResource(WRITE_TRACKED) instanceof AtomicBoolean written) {
+            written.set(true);
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            trackWrites();
+            return Target.PRIMARY;
+        }
+        if (TransactionSynchronizationManager.hasResource(PRIMARY_PINNED)) {
+            return Target.PRIMARY;
+        }
+        return replicaReadable() ? Target.REPLICA : Target.PRIMARY;
+    }
+
+    private boolean replicaReadable() {
+        Long lag = replicaLagMillis;
+        long now = System.currentTimeMillis();
+        if (!replicaAvailable || (lag != null && lag > maxLagMillis) || now - replicaCheckedMillis > maxReadingAgeMillis) {
+            return false;
+        }
+        long window = lag == null ? maxLagMillis : lag;
+        return !readYourWrites || now - lastWriteMillis > window;
+    }
+
+    private void trackWrites() {
+        if (!readYourWrites
+                || !TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(WRITE_TRACKED)) {
+            return;
+        }
+        AtomicBoolean written = new AtomicBoolean();
+        TransactionSynchronizationManager.bindResource(WRITE_TRACKED, written);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                if (written.get()) {
+                    lastWriteMillis = System.currentTimeMillis();
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(WRITE_TRACKED);
+            }
+        });
+    }
+}
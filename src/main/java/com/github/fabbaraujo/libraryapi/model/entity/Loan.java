@@ -27,4 +27,6 @@ public class Loan {
 
     private LocalDate loanDate;
     private Boolean returned;
+    @Version
+    private Long version;
 }
@@ -0,0 +1,34 @@
+package com.github.fabbaraujo.libraryapi.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * Read-only view over the hot {@code loan} table and {@code loan_archive}, used when a listing asks for history.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Immutable
+@Table(name = "loan_history")
+public class LoanHistory {
+
+    @Id
+    private Long id;
+    private String customer;
+    private String customerEmail;
+
+    @JoinColumn(name = "id_book")
+    @ManyToOne(fetch = FetchType.LAZY)
+    private Book book;
+
+    private LocalDate loanDate;
+    private Boolean returned;
+    private Boolean archived;
+}
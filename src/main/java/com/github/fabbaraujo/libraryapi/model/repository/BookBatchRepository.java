@@ -0,0 +1,9 @@
+package com.github.fabbaraujo.libraryapi.model.repository;
+
+import com.github.fabbaraujo.libraryapi.model.entity.Book;
+
+import java.util.List;
+
+public interface BookBatchRepository {
+    List<Book> insertAll(List<Book> books);
+}
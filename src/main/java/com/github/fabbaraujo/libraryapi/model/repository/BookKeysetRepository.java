@@ -0,0 +1,7 @@
+package com.github.fabbaraujo.libraryapi.model.repository;
+
+import com.github.fabbaraujo.libraryapi.model.entity.Book;
+
+public interface BookKeysetRepository {
+    KeysetPage<Book> findByKeyset(Book filter, Keyset keyset, int size);
+}
@@ -0,0 +1,27 @@
+package com.github.fabbaraujo.libraryapi.model.repository;
+
+import com.github.fabbaraujo.libraryapi.model.entity.Book;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Map;
+import java.util.function.Function;
+
+public class BookKeysetRepositoryImpl implements BookKeysetRepository {
+
+    private static final Map<String, Function<Book, Object>> SORT_KEYS = Map.of(
+            "id", Book::getId,
+            "title", Book::getTitle,
+            "author", Book::getAuthor,
+            "isbn", Book::getIsbn
+    );
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public KeysetPage<Book> findByKeyset(Book filter, Keyset keyset, int size) {
+        return new KeysetQuery<>(entityManager, Book.class, SORT_KEYS)
+                .fetch(keyset, size, (builder, query, root) -> BookPredicates.matching(filter, builder, root));
+    }
+}
@@ -0,0 +1,35 @@
+package com.github.fabbaraujo.libraryapi.model.repository;
+
+import com.github.fabbaraujo.libraryapi.model.entity.Book;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.List;
+
+final class BookPredicates {
+
+    private BookPredicates() {
+    }
+
+    static List<Predicate> matching(Book filter, CriteriaBuilder builder, Root<Book> root) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.getId() != null) {
+            predicates.add(builder.equal(root.get("id"), filter.getId()));
+        }
+        if (filter.getTitle() != null) {
+            predicates.add(KeysetQuery.containsIgnoringCase(builder, root.get("title"), filter.getTitle()));
+        }
+        if (filter.getAuthor() != null) {
+            predicates.add(KeysetQuery.containsIgnoringCase(builder, root.get("author"), filter.getAuthor()));
+        }
+        if (filter.getIsbn() != null) {
+            predicates.add(KeysetQuery.containsIgnoringCase(builder, root.get("isbn"), filter.getIsbn()));
+        }
+        if (filter.getAvailable() != null) {
+            predicates.add(builder.equal(root.get("available"), filter.getAvailable()));
+        }
+        return predicates;
+    }
+}
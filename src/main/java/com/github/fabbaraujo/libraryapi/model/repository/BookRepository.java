@@ -1,14 +1,71 @@
 package com.github.fabbaraujo.libraryapi.model.repository;
 
+import com.github.fabbaraujo.libraryapi.api.response.BookResponse;
 import com.github.fabbaraujo.libraryapi.model.entity.Book;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 @Repository
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, BookBatchRepository, BookKeysetRepository,
+        BookResponseRepository {
     boolean existsByIsbn(String isbn);
     Optional<Book> findByIsbn(String isbn);
 
+    @Query(value = "select b.id as id, b.isbn as isbn from Book b")
+    List<IsbnEntry> findAllIsbnEntries();
+
+    @Query(value = "select b.isbn from Book b where b.isbn in :isbns")
+    Set<String> findExistingIsbns(@Param("isbns") Collection<String> isbns);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(value = "select new com.github.fabbaraujo.libraryapi.api.response.BookResponse(b.id, b.title, b.author, b.isbn) " +
+            "from Book b order by b.id")
+    Stream<BookResponse> streamAllResponses();
+
+    @Query(value = "select new com.github.fabbaraujo.libraryapi.api.response.BookResponse(b.id, b.title, b.author, b.isbn) " +
+            "from Book b where b.id in :ids")
+    List<BookResponse> findResponsesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(value = "select b.version from Book b where b.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    @Query(value = "select version from collection_version where name = 'book'", nativeQuery = true)
+    long findCollectionVersion();
+
+    @Transactional
+    @Modifying
+    @Query(value = "update collection_version set version = version + 1 where name = 'book'", nativeQuery = true)
+    int bumpCollectionVersion();
+
+    @Modifying
+    @Query(value = "update Book b set b.available = false, b.version = b.version + 1 " +
+            "where b.id = :id and b.available = true")
+    int checkout(@Param("id") Long id);
+
+    @Modifying
+    @Query(value = "update Book b set b.available = true, b.version = b.version + 1 where b.id = :id")
+    int release(@Param("id") Long id);
+
+    @Modifying
+    @Query(value = "update Book b set b.available = true, b.version = b.version + 1 where b.id in :ids")
+    int releaseAll(@Param("ids") Collection<Long> ids);
+
+    interface IsbnEntry {
+        Long getId();
+        String getIsbn();
+    }
 }
@@ -0,0 +1,11 @@
+package com.github.fabbaraujo.libraryapi.model.repository;
+
+import com.github.fabbaraujo.libraryapi.api.response.BookResponse;
+import com.github.fabbaraujo.libraryapi.model.entity.Book;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+public interface BookResponseRepository {
+    Slice<BookResponse> findResponses(Book filter, Pageable pageable);
+    long countResponses(Book filter);
+}
@@ -0,0 +1,55 @@
+package com.github.fabbaraujo.libraryapi.model.repository;
+
+import com.github.fabbaraujo.libraryapi.api.response.BookResponse;
+import com.github.fabbaraujo.libraryapi.model.entity.Book;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.List;
+
+public class BookResponseRepositoryImpl implements BookResponseRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Slice<BookResponse> findResponses(Book filter, Pageable pageable) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BookResponse> query = builder.createQuery(BookResponse.class);
+        Root<Book> root = query.from(Book.class);
+        query.select(builder.construct(BookResponse.class,
+                        root.get("id"), root.get("title"), root.get("author"), root.get("isbn")))
+                .where(BookPredicates.matching(filter, builder, root).toArray(Predicate[]::new))
+                .orderBy(QueryUtils.toOrders(pageable.getSort(), root, builder));
+
+        TypedQuery<BookResponse> typedQuery = entityManager.createQuery(query);
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(typedQuery.getResultList());
+        }
+        List<BookResponse> content = typedQuery
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+        boolean hasNext = content.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+    }
+
+    @Override
+    public long countResponses(Book filter) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = builder.createQuery(Long.class);
+        Root<Book> root = query.from(Book.class);
+        query.select(builder.count(root))
+                .where(BookPredicates.matching(filter, builder, root).toArray(Predicate[]::new));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+}
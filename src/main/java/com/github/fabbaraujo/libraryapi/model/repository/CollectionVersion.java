@@ -0,0 +1,17 @@
+package com.github.fabbaraujo.libraryapi.model.repository;
+
+/**
+ * Aggregate over a set of versioned rows that changes whenever a row is inserted, updated or deleted.
+ */
+public interface CollectionVersion {
+
+    Long getCount();
+
+    Long getMaxId();
+
+    Long getVersionSum();
+
+    default String token() {
+        return getCount() + "-" + getMaxId() + "-" + getVersionSum();
+    }
+}
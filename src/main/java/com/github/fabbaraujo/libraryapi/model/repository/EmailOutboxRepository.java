@@ -0,0 +1,31 @@
+package com.github.fabbaraujo.libraryapi.model.repository;
+
+import com.github.fabbaraujo.libraryapi.model.entity.EmailOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    @Query(value = " select e from EmailOutbox e where e.status = 'PENDING' and e.nextAttemptAt <= :now order by e.id ")
+    List<EmailOutbox> findDue(@Param("now") LocalDateTime now, Pageable pageable);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query(value = " update EmailOutbox e set e.status = 'SENDING', e.claimedAt = :now where e.id = :id and e.status = 'PENDING' ")
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query(value = " update EmailOutbox e set e.status = 'PENDING' where e.status = 'SENDING' " +
+            " and (e.claimedAt is null or e.claimedAt < :claimedBefore) ")
+    int releaseClaimedBefore(@Param("claimedBefore") LocalDateTime claimedBefore);
+
+    long countByStatus(EmailOutbox.Status status);
+}
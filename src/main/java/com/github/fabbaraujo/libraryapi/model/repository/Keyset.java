@@ -0,0 +1,28 @@
+package com.github.fabbaraujo.libraryapi.model.repository;
+
+import lombok.Value;
+import org.springframework.data.domain.Sort;
+
+@Value
+public class Keyset {
+
+    String property;
+    Sort.Direction direction;
+    String lastValue;
+    Long lastId;
+
+    public static Keyset first(Sort sort) {
+        Sort.Order order = sort.stream()
+                .findFirst()
+                .orElse(Sort.Order.asc("id"));
+        return new Keyset(order.getProperty(), order.getDirection(), null, null);
+    }
+
+    public boolean isFirst() {
+        return lastId == null;
+    }
+
+    public Keyset next(Object value, Long id) {
+        return new Keyset(property, direction, value == null ? null : value.toString(), id);
+    }
+}
@@ -0,0 +1,16 @@
+package com.github.fabbaraujo.libraryapi.model.repository;
+
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class KeysetPage<T> {
+
+    List<T> content;
+    Keyset next;
+
+    public boolean hasNext() {
+        return next != null;
+    }
+}
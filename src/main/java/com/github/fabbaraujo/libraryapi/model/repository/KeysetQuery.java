@@ -0,0 +1,114 @@
+package com.github.fabbaraujo.libraryapi.model.repository;
+
+import com.github.fabbaraujo.libraryapi.exception.BusinessException;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.*;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+final class KeysetQuery<T> {
+
+    private static final String ID = "id";
+
+    private final EntityManager entityManager;
+    private final Class<T> type;
+    private final Map<String, Function<T, Object>> sortKeys;
+
+    KeysetQuery(EntityManager entityManager, Class<T> type, Map<String, Function<T, Object>> sortKeys) {
+        this.entityManager = entityManager;
+        this.type = type;
+        this.sortKeys = sortKeys;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    KeysetPage<T> fetch(Keyset keyset, int size, Filters<T> filters) {
+        Function<T, Object> sortKey = sortKeys.get(keyset.getProperty());
+        if (sortKey == null) {
+            throw new BusinessException("Propriedade de ordenação inválida: " + keyset.getProperty());
+        }
+
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = builder.createQuery(type);
+        Root<T> root = query.from(type);
+        List<Predicate> predicates = new ArrayList<>(filters.apply(builder, query, root));
+
+        boolean ascending = keyset.getDirection().isAscending();
+        Path<Long> id = root.get(ID);
+        Path<Comparable> key = root.get(keyset.getProperty());
+        boolean sortById = ID.equals(keyset.getProperty());
+
+        if (!keyset.isFirst()) {
+            Predicate afterId = ascending ? builder.greaterThan(id, keyset.getLastId()) : builder.lessThan(id, keyset.getLastId());
+            if (sortById) {
+                predicates.add(afterId);
+            } else {
+                predicates.add(afterKey(builder, key, keyset.getLastValue(), ascending, afterId));
+            }
+        }
+
+        List<Order> orders = new ArrayList<>();
+        if (!sortById) {
+            orders.add(ascending ? builder.asc(key) : builder.desc(key));
+        }
+        orders.add(ascending ? builder.asc(id) : builder.desc(id));
+        query.where(predicates.toArray(Predicate[]::new)).orderBy(orders);
+
+        List<T> rows = entityManager.createQuery(query)
+                .setMaxResults(size + 1)
+                .getResultList();
+        if (rows.size() <= size) {
+            return new KeysetPage<>(rows, null);
+        }
+
+        List<T> content = rows.subList(0, size);
+        T last = content.get(size - 1);
+        return new KeysetPage<>(content, keyset.next(sortKey.apply(last), (Long) sortKeys.get(ID).apply(last)));
+    }
+
+    static Predicate containsIgnoringCase(CriteriaBuilder builder, Expression<String> expression, String value) {
+        String escaped = value.toLowerCase()
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return builder.like(builder.lower(expression), "%" + escaped + "%", '\\');
+    }
+
+    // NULLs sort low, as H2 orders them: first when ascending and last when descending.
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate afterKey(CriteriaBuilder builder, Path<Comparable> key, String value, boolean ascending, Predicate afterId) {
+        if (value == null) {
+            Predicate afterNull = builder.and(builder.isNull(key), afterId);
+            return ascending ? builder.or(afterNull, builder.isNotNull(key)) : afterNull;
+        }
+        Comparable lastValue = convert(value, key.getJavaType());
+        Predicate after = builder.or(
+                ascending ? builder.greaterThan(key, lastValue) : builder.lessThan(key, lastValue),
+                builder.and(builder.equal(key, lastValue), afterId));
+        return ascending ? after : builder.or(after, builder.isNull(key));
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static Comparable convert(String value, Class<?> javaType) {
+        try {
+            if (Long.class.equals(javaType)) {
+                return Long.valueOf(value);
+            }
+            if (LocalDate.class.equals(javaType)) {
+                return LocalDate.parse(value);
+            }
+            return value;
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new BusinessException("Cursor inválido.");
+        }
+    }
+
+    @FunctionalInterface
+    interface Filters<T> {
+        List<Predicate> apply(CriteriaBuilder builder, CriteriaQuery<T> query, Root<T> root);
+    }
+}
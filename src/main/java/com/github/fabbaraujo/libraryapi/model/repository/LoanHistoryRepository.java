@@ -0,0 +1,20 @@
+package com.github.fabbaraujo.libraryapi.model.repository;
+
+import com.github.fabbaraujo.libraryapi.api.response.LoanResponse;
+import com.github.fabbaraujo.libraryapi.model.entity.Book;
+import com.github.fabbaraujo.libraryapi.model.entity.LoanHistory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+public interface LoanHistoryRepository extends Repository<LoanHistory, Long>, LoanHistorySearchRepository {
+
+    @Query(value = "select new com.github.fabbaraujo.libraryapi.api.response.LoanResponse(" +
+            "l.id, l.customer, l.customerEmail, b.id, b.title, b.author, b.isbn) " +
+            "from LoanHistory as l join l.book as b where b = :book")
+    Slice<LoanResponse> findResponsesByBook(@Param("book") Book book, Pageable pageable);
+
+    long countByBook(Book book);
+}
@@ -0,0 +1,25 @@
+package com.github.fabbaraujo.libraryapi.model.repository;
+
+import com.github.fabbaraujo.libraryapi.api.response.LoanResponse;
+import com.github.fabbaraujo.libraryapi.model.entity.LoanHistory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+public class LoanHistorySearchRepositoryImpl implements LoanHistorySearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Slice<LoanResponse> findResponsesByBookIsbnOrCustomer(String isbn, String customer, Pageable pageable) {
+        return new LoanSearchQuery<>(entityManager, LoanHistory.class).findResponses(isbn, customer, pageable);
+    }
+
+    @Override
+    public long countByBookIsbnOrCustomer(String isbn, String customer) {
+        return new LoanSearchQuery<>(entityManager, LoanHistory.class).count(isbn, customer);
+    }
+}
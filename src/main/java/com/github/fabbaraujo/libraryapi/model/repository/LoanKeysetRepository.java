@@ -0,0 +1,7 @@
+package com.github.fabbaraujo.libraryapi.model.repository;
+
+import com.github.fabbaraujo.libraryapi.model.entity.Loan;
+
+public interface LoanKeysetRepository {
+    KeysetPage<Loan> findByKeyset(String isbn, String customer, Keyset keyset, int size);
+}
@@ -0,0 +1,28 @@
+package com.github.fabbaraujo.libraryapi.model.repository;
+
+import com.github.fabbaraujo.libraryapi.model.entity.Loan;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Map;
+import java.util.function.Function;
+
+public class LoanKeysetRepositoryImpl implements LoanKeysetRepository {
+
+    private static final Map<String, Function<Loan, Object>> SORT_KEYS = Map.of(
+            "id", Loan::getId,
+            "loanDate", Loan::getLoanDate,
+            "customer", Loan::getCustomer
+    );
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public KeysetPage<Loan> findByKeyset(String isbn, String customer, Keyset keyset, int size) {
+        return new KeysetQuery<>(entityManager, Loan.class, SORT_KEYS).fetch(keyset, size, (builder, query, root) -> {
+            root.fetch("book");
+            return LoanSearchQuery.matching(isbn, customer, builder, query, root);
+        });
+    }
+}
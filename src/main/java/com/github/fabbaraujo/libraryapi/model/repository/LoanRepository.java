@@ -1,27 +1,95 @@
 package com.github.fabbaraujo.libraryapi.model.repository;
 
+import com.github.fabbaraujo.libraryapi.api.response.LoanResponse;
 import com.github.fabbaraujo.libraryapi.model.entity.Book;
 import com.github.fabbaraujo.libraryapi.model.entity.Loan;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
-public interface LoanRepository extends JpaRepository<Loan, Long> {
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
-    @Query(value = "select case when (count(l.id) > 0) then true else false end from Loan l " +
-            "where l.book = :book and (l.returned is null or l.returned is false)")
-    boolean existsByBookAndNotReturned(@Param("book") Book book);
+public interface LoanRepository extends JpaRepository<Loan, Long>, LoanKeysetRepository, LoanSearchRepository {
 
-    @Query(value = "select l from Loan as l join l.book as b where b.isbn = :isbn or l.customer = :customer")
-    Page<Loan> findByBookIsbnOrCustomer(@Param("isbn") String isbn, @Param("customer") String customer, Pageable pageable);
+    @Query(value = "select new com.github.fabbaraujo.libraryapi.api.response.LoanResponse(" +
+            "l.id, l.customer, l.customerEmail, b.id, b.title, b.author, b.isbn) " +
+            "from Loan as l join l.book as b where b = :book")
+    Slice<LoanResponse> findResponsesByBook(@Param("book") Book book, Pageable pageable);
 
-    Page<Loan> findByBook(Book book, Pageable pageable);
+    long countByBook(Book book);
 
-    @Query(value = "select l from Loan l where l.loanDate <= :threeDaysAgo and (l.returned is null or l.returned is false)")
-    List<Loan> findByLoanDateLessThenAndNotReturned(@Param("threeDaysAgo") LocalDate threeDaysAgo);
+    @Query(value = "select count(l) as count, max(l.id) as maxId, coalesce(sum(l.version), 0) as versionSum " +
+            "from Loan l where l.book = :book")
+    CollectionVersion findCollectionVersionByBook(@Param("book") Book book);
+
+    @Query(value = "select l.id as id, l.customerEmail as customerEmail from Loan l " +
+            "where l.id in :ids and (l.returned is null or l.returned is false)")
+    List<LateLoanEntry> findOpenLateLoansByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(value = "select l.id as id, l.loanDate as loanDate from Loan l " +
+            "where (l.returned is null or l.returned is false) and l.id > :lastId order by l.id")
+    List<DueEntry> findOpenDueEntriesAfter(@Param("lastId") Long lastId, Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query(value = "select l.id as id, l.returned as returned, b.id as bookId, b.isbn as isbn " +
+            "from Loan l join l.book b where l.id in :ids")
+    List<ReturnEntry> findReturnEntriesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query(value = "select l.id as id, l.returned as returned, b.id as bookId, b.isbn as isbn " +
+            "from Loan l join l.book b where b.isbn in :isbns and (l.returned is null or l.returned is false)")
+    List<ReturnEntry> findOpenReturnEntriesByIsbnIn(@Param("isbns") Collection<String> isbns);
+
+    @Modifying
+    @Query(value = "update Loan l set l.returned = true, l.version = l.version + 1 " +
+            "where l.id in :ids and (l.returned is null or l.returned is false)")
+    int markReturned(@Param("ids") Collection<Long> ids);
+
+    @Query(value = "select l.id from Loan l where l.returned = true and l.loanDate < :before order by l.id")
+    List<Long> findArchivableIds(@Param("before") LocalDate before, Pageable pageable);
+
+    @Modifying
+    @Query(value = "insert into loan_archive (id, customer, customer_email, id_book, loan_date, returned, version, archived_at) " +
+            "select id, customer, customer_email, id_book, loan_date, returned, version, current_timestamp from loan " +
+            "where id in :ids and returned = true", nativeQuery = true)
+    int copyToArchive(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "delete from Loan l where l.id in :ids and l.returned = true")
+    int deleteArchived(@Param("ids") Collection<Long> ids);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(value = "select new com.github.fabbaraujo.libraryapi.api.response.LoanResponse(" +
+            "l.id, l.customer, l.customerEmail, b.id, b.title, b.author, b.isbn) " +
+            "from Loan l join l.book b order by l.id")
+    Stream<LoanResponse> streamAllResponses();
+
+    interface LateLoanEntry {
+        Long getId();
+        String getCustomerEmail();
+    }
+
+    interface DueEntry {
+        Long getId();
+        LocalDate getLoanDate();
+    }
+
+    interface ReturnEntry {
+        Long getId();
+        Boolean getReturned();
+        Long getBookId();
+        String getIsbn();
+    }
 }
@@ -0,0 +1,83 @@
+package com.github.fabbaraujo.libraryapi.model.repository;
+
+import com.github.fabbaraujo.libraryapi.api.response.LoanResponse;
+import com.github.fabbaraujo.libraryapi.model.entity.Book;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Isbn-or-customer search over {@code Loan} or {@code LoanHistory}, built only from the filters that are present.
+ * The isbn is matched through a scalar subquery on the unique isbn index, so every branch compares a column of the
+ * loan table itself ({@code id_book} or {@code customer}) and each can be answered by its own index instead of an
+ * OR across the book join. Without any filter nothing matches, as with the former {@code isbn = ? or customer = ?}
+ * query bound to nulls.
+ */
+final class LoanSearchQuery<T> {
+
+    private final EntityManager entityManager;
+    private final Class<T> type;
+
+    LoanSearchQuery(EntityManager entityManager, Class<T> type) {
+        this.entityManager = entityManager;
+        this.type = type;
+    }
+
+    Slice<LoanResponse> findResponses(String isbn, String customer, Pageable pageable) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<LoanResponse> query = builder.createQuery(LoanResponse.class);
+        Root<T> root = query.from(type);
+        Join<T, Book> book = root.join("book");
+        query.select(builder.construct(LoanResponse.class,
+                        root.get("id"), root.get("customer"), root.get("customerEmail"),
+                        book.get("id"), book.get("title"), book.get("author"), book.get("isbn")))
+                .where(matching(isbn, customer, builder, query, root).toArray(Predicate[]::new))
+                .orderBy(QueryUtils.toOrders(pageable.getSort(), root, builder));
+        return slice(entityManager.createQuery(query), pageable);
+    }
+
+    long count(String isbn, String customer) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = builder.createQuery(Long.class);
+        Root<T> root = query.from(type);
+        query.select(builder.count(root))
+                .where(matching(isbn, customer, builder, query, root).toArray(Predicate[]::new));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    static List<Predicate> matching(String isbn, String customer, CriteriaBuilder builder, AbstractQuery<?> query, Root<?> root) {
+        List<Predicate> branches = new ArrayList<>();
+        if (isbn != null) {
+            Subquery<Long> bookId = query.subquery(Long.class);
+            Root<Book> book = bookId.from(Book.class);
+            bookId.select(book.get("id")).where(builder.equal(book.get("isbn"), isbn));
+            branches.add(builder.equal(root.get("book").get("id"), bookId));
+        }
+        if (customer != null) {
+            branches.add(builder.equal(root.get("customer"), customer));
+        }
+        if (branches.isEmpty()) {
+            return List.of(builder.disjunction());
+        }
+        return branches.size() > 1 ? List.of(builder.or(branches.toArray(Predicate[]::new))) : branches;
+    }
+
+    static <R> Slice<R> slice(TypedQuery<R> query, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(query.getResultList());
+        }
+        List<R> content = query
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+        boolean hasNext = content.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+    }
+}
@@ -0,0 +1,10 @@
+package com.github.fabbaraujo.libraryapi.model.repository;
+
+import com.github.fabbaraujo.libraryapi.api.response.LoanResponse;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+public interface LoanSearchRepository {
+    Slice<LoanResponse> findResponsesByBookIsbnOrCustomer(String isbn, String customer, Pageable pageable);
+    long countByBookIsbnOrCustomer(String isbn, String customer);
+}
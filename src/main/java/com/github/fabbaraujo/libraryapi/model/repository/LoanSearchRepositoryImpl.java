@@ -0,0 +1,25 @@
+package com.github.fabbaraujo.libraryapi.model.repository;
+
+import com.github.fabbaraujo.libraryapi.api.response.LoanResponse;
+import com.github.fabbaraujo.libraryapi.model.entity.Loan;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+public class LoanSearchRepositoryImpl implements LoanSearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Slice<LoanResponse> findResponsesByBookIsbnOrCustomer(String isbn, String customer, Pageable pageable) {
+        return new LoanSearchQuery<>(entityManager, Loan.class).findResponses(isbn, customer, pageable);
+    }
+
+    @Override
+    public long countByBookIsbnOrCustomer(String isbn, String customer) {
+        return new LoanSearchQuery<>(entityManager, Loan.class).count(isbn, customer);
+    }
+}
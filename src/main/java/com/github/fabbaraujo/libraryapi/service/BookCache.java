@@ -0,0 +1,96 @@
+package com.github.fabbaraujo.libraryapi.service;
+
+import com.github.fabbaraujo.libraryapi.model.entity.Book;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Per-instance cache of books by id and isbn. Entries are detached copies and every hit hands out a new copy, so a
+ * caller changing the book it got back never exposes a half-applied change to other requests.
+ */
+@Component
+public class BookCache {
+
+    public static final String BOOKS_CACHE = "books";
+    public static final String BOOKS_BY_ISBN_CACHE = "booksByIsbn";
+
+    private final Cache byId;
+    private final Cache byIsbn;
+
+    public BookCache(CacheManager cacheManager) {
+        this.byId = Objects.requireNonNull(cacheManager.getCache(BOOKS_CACHE), "cache " + BOOKS_CACHE + " not configured");
+        this.byIsbn = Objects.requireNonNull(cacheManager.getCache(BOOKS_BY_ISBN_CACHE), "cache " + BOOKS_BY_ISBN_CACHE + " not configured");
+    }
+
+    public Optional<Book> getById(Long id, Supplier<Optional<Book>> loader) {
+        return get(byId, id, loader);
+    }
+
+    /**
+     * Serves the cached book only while it still carries {@code version}. Otherwise the book comes from
+     * {@code loader} without being cached, since it may have been read from a lagging replica; an entry older than
+     * {@code version} is evicted.
+     */
+    public Optional<Book> getById(Long id, Long version, Supplier<Optional<Book>> loader) {
+        Book cached = byId.get(id, Book.class);
+        if (cached != null && version.equals(cached.getVersion())) {
+            return Optional.of(copy(cached));
+        }
+        if (cached != null && cached.getVersion() != null && cached.getVersion() < version) {
+            byId.evict(id);
+        }
+        return loader.get();
+    }
+
+    public Optional<Book> getByIsbn(String isbn, Supplier<Optional<Book>> loader) {
+        return get(byIsbn, isbn, loader);
+    }
+
+    /**
+     * Drops the entries of a changed book once the current transaction commits, or right away outside of one, so
+     * that a read racing with the change cannot put the old state back before it is visible.
+     */
+    public void evict(Long id, String isbn) {
+        Runnable eviction = () -> {
+            if (id != null) {
+                byId.evict(id);
+            }
+            if (isbn != null) {
+                byIsbn.evict(isbn);
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eviction.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                eviction.run();
+            }
+        });
+    }
+
+    private Optional<Book> get(Cache cache, Object key, Supplier<Optional<Book>> loader) {
+        Book cached = cache.get(key, Book.class);
+        if (cached != null) {
+            return Optional.of(copy(cached));
+        }
+        Optional<Book> loaded = loader.get();
+        loaded.ifPresent(book -> cache.put(key, copy(book)));
+        return loaded;
+    }
+
+    private Book copy(Book book) {
+        return book.toBuilder()
+                .loans(null)
+                .build();
+    }
+}
@@ -1,16 +1,29 @@
 package com.github.fabbaraujo.libraryapi.service;
 
+import com.github.fabbaraujo.libraryapi.api.response.BookImportResult;
+import com.github.fabbaraujo.libraryapi.api.response.BookResponse;
 import com.github.fabbaraujo.libraryapi.model.entity.Book;
+import com.github.fabbaraujo.libraryapi.model.repository.Keyset;
+import com.github.fabbaraujo.libraryapi.model.repository.KeysetPage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface BookService {
     Book save(Book book);
+    List<BookImportResult> saveAll(List<Book> books);
     Optional<Book> getById(Long id);
+    Optional<Book> getCurrentById(Long id);
+    long getCollectionVersion();
     void delete(Book book);
     Book update(Book book);
-    Page<Book> find(Book filter, Pageable pageRequest);
+    Page<BookResponse> findResponses(Book filter, Pageable pageRequest);
+    Slice<BookResponse> findResponseSlice(Book filter, Pageable pageRequest);
+    KeysetPage<Book> find(Book filter, Keyset keyset, int size);
     Optional<Book> getBookByIsbn(String isbn);
+    void exportAll(Consumer<BookResponse> consumer);
 }
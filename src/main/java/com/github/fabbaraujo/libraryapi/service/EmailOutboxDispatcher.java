@@ -0,0 +1,183 @@
+package com.github.fabbaraujo.libraryapi.service;
+
+import com.github.fabbaraujo.libraryapi.model.entity.EmailOutbox;
+import com.github.fabbaraujo.libraryapi.model.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EmailOutboxDispatcher implements MeterBinder {
+
+    @Value("${application.mail.outbox.workers:4}")
+    private int workers;
+
+    @Value("${application.mail.outbox.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${application.mail.outbox.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${application.mail.outbox.initial-backoff-ms:30000}")
+    private long initialBackoff;
+
+    @Value("${application.mail.outbox.max-backoff-ms:3600000}")
+    private long maxBackoff;
+
+    @Value("${application.mail.outbox.claim-lease-ms:600000}")
+    private long claimLease;
+
+    private final EmailOutboxRepository repository;
+    private final JavaMailSender javaMailSender;
+
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong dead = new AtomicLong();
+
+    private ThreadPoolTaskExecutor executor;
+
+    @PostConstruct
+    public void startExecutor() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("email-outbox-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+    }
+
+    @PreDestroy
+    public void stopExecutor() {
+        executor.shutdown();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${application.mail.outbox.claim-lease-ms:600000}",
+            initialDelayString = "${application.mail.outbox.claim-lease-ms:600000}")
+    public void releaseInterruptedDeliveries() {
+        int released = repository.releaseClaimedBefore(LocalDateTime.now().minus(Duration.ofMillis(claimLease)));
+        if (released > 0) {
+            log.info("released {} emails whose delivery claim expired", released);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${application.mail.outbox.poll-interval-ms:5000}")
+    public int dispatch() {
+        int capacity = executor.getThreadPoolExecutor().getQueue().remainingCapacity()
+                + workers - executor.getActiveCount();
+        if (capacity <= 0) {
+            return 0;
+        }
+
+        int submitted = 0;
+        List<EmailOutbox> due = repository.findDue(LocalDateTime.now(), PageRequest.of(0, capacity));
+        for (EmailOutbox email : due) {
+            if (repository.claim(email.getId(), LocalDateTime.now()) == 0) {
+                continue;
+            }
+            try {
+                executor.execute(() -> deliver(email));
+                submitted++;
+            } catch (TaskRejectedException e) {
+                email.setStatus(EmailOutbox.Status.PENDING);
+                repository.save(email);
+                break;
+            }
+        }
+        return submitted;
+    }
+
+    void deliver(EmailOutbox email) {
+        int attempts = email.getAttempts() + 1;
+        email.setAttempts(attempts);
+        try {
+            javaMailSender.send(toMessage(email));
+            email.setStatus(EmailOutbox.Status.SENT);
+            email.setSentAt(LocalDateTime.now());
+            email.setLastError(null);
+            delivered.incrementAndGet();
+        } catch (RuntimeException e) {
+            email.setLastError(abbreviate(e.getMessage()));
+            if (attempts >= maxAttempts) {
+                email.setStatus(EmailOutbox.Status.DEAD);
+                dead.incrementAndGet();
+                log.error("email {} moved to dead letter after {} attempts", email.getId(), attempts, e);
+            } else {
+                email.setStatus(EmailOutbox.Status.PENDING);
+                email.setNextAttemptAt(LocalDateTime.now().plus(backoff(attempts)));
+                retried.incrementAndGet();
+                log.warn("email {} delivery failed, attempt {} of {}", email.getId(), attempts, maxAttempts);
+            }
+        }
+        repository.save(email);
+    }
+
+    public long getDeliveredCount() {
+        return delivered.get();
+    }
+
+    public long getRetriedCount() {
+        return retried.get();
+    }
+
+    public long getDeadCount() {
+        return dead.get();
+    }
+
+    public long getPendingCount() {
+        return repository.countByStatus(EmailOutbox.Status.PENDING);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("library.mail.outbox.delivered", delivered, AtomicLong::get).register(registry);
+        FunctionCounter.builder("library.mail.outbox.retried", retried, AtomicLong::get).register(registry);
+        FunctionCounter.builder("library.mail.outbox.dead", dead, AtomicLong::get).register(registry);
+        Gauge.builder("library.mail.outbox.pending", this, EmailOutboxDispatcher::getPendingCount).register(registry);
+    }
+
+    Duration backoff(int attempts) {
+        long delay = initialBackoff << Math.min(attempts - 1, 30);
+        return Duration.ofMillis(Math.min(delay, maxBackoff));
+    }
+
+    private SimpleMailMessage toMessage(EmailOutbox email) {
+        SimpleMailMessage mailMessage = new SimpleMailMessage();
+        mailMessage.setFrom(email.getSender());
+        mailMessage.setSubject(email.getSubject());
+        mailMessage.setText(email.getText());
+        mailMessage.setTo(email.getRecipients().split(","));
+        return mailMessage;
+    }
+
+    private String abbreviate(String message) {
+        if (message == null || message.length() <= 1000) {
+            return message;
+        }
+        return message.substring(0, 1000);
+    }
+}
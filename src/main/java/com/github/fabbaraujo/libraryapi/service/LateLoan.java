@@ -0,0 +1,10 @@
+package com.github.fabbaraujo.libraryapi.service;
+
+import lombok.Value;
+
+@Value
+public class LateLoan {
+
+    Long id;
+    String customerEmail;
+}
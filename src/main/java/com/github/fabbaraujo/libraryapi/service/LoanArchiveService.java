@@ -0,0 +1,54 @@
+package com.github.fabbaraujo.libraryapi.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LoanArchiveService {
+
+    @Value("${application.loans.archive.min-age-days:365}")
+    private int minAgeDays;
+
+    @Value("${application.loans.archive.batch-size:1000}")
+    private int batchSize;
+
+    private final LoanService loanService;
+    private final MeterRegistry registry;
+
+    @Scheduled(cron = "${application.loans.archive.cron:0 30 2 * * ?}")
+    public long archiveReturnedLoans() {
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = "SUCCESS";
+        try {
+            return archive(LocalDate.now().minusDays(minAgeDays));
+        } catch (RuntimeException e) {
+            outcome = "ERROR";
+            throw e;
+        } finally {
+            sample.stop(registry.timer("library.loans.archive.job", "outcome", outcome));
+        }
+    }
+
+    private long archive(LocalDate before) {
+        long archived = 0;
+        int moved = loanService.archiveReturned(before, batchSize);
+        while (moved > 0) {
+            archived += moved;
+            registry.counter("library.loans.archived").increment(moved);
+            moved = loanService.archiveReturned(before, batchSize);
+        }
+        if (archived > 0) {
+            log.info("archived {} loans returned before {}", archived, before);
+        }
+        return archived;
+    }
+}
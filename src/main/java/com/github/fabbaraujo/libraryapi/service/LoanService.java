@@ -1,19 +1,35 @@
 package com.github.fabbaraujo.libraryapi.service;
 
 import com.github.fabbaraujo.libraryapi.api.request.LoanFilterRequest;
+import com.github.fabbaraujo.libraryapi.api.response.LoanResponse;
+import com.github.fabbaraujo.libraryapi.api.response.LoanReturnResult;
 import com.github.fabbaraujo.libraryapi.model.entity.Book;
 import com.github.fabbaraujo.libraryapi.model.entity.Loan;
+import com.github.fabbaraujo.libraryapi.model.repository.CollectionVersion;
+import com.github.fabbaraujo.libraryapi.model.repository.Keyset;
+import com.github.fabbaraujo.libraryapi.model.repository.KeysetPage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface LoanService {
     Loan save(Loan loan);
     Optional<Loan> getById(Long id);
-    Loan update(Loan loan);
-    Page<Loan> find(LoanFilterRequest filterRequest, Pageable pageable);
-    Page<Loan> getLoansByBook(Book book, Pageable pageable);
-    List<Loan> getAllLateLoans();
+    Optional<Loan> updateReturned(Long id, boolean returned);
+    List<LoanReturnResult> returnAll(List<Long> ids, List<String> isbns);
+    Page<LoanResponse> findResponses(LoanFilterRequest filterRequest, Pageable pageable);
+    Slice<LoanResponse> findResponseSlice(LoanFilterRequest filterRequest, Pageable pageable);
+    KeysetPage<Loan> find(LoanFilterRequest filterRequest, Keyset keyset, int size);
+    Page<LoanResponse> getLoanResponsesByBook(Book book, boolean history, Pageable pageable);
+    Slice<LoanResponse> getLoanResponseSliceByBook(Book book, boolean history, Pageable pageable);
+    CollectionVersion getCollectionVersionByBook(Book book);
+    List<LateLoan> getOpenLateLoans(Collection<Long> ids);
+    void exportAll(Consumer<LoanResponse> consumer);
+    int archiveReturned(LocalDate before, int batchSize);
 }
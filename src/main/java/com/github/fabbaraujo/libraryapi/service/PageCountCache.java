@@ -0,0 +1,50 @@
+package com.github.fabbaraujo.libraryapi.service;
+
+import com.github.fabbaraujo.libraryapi.api.request.LoanFilterRequest;
+import com.github.fabbaraujo.libraryapi.model.entity.Book;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+/**
+ * Short-lived cache of page totals so paging through a listing runs its {@code count(*)} once per filter instead of
+ * once per page. Keys are normalized the same way the queries match, so filters differing only in case share a total.
+ */
+@Component
+public class PageCountCache {
+
+    public static final String PAGE_COUNTS_CACHE = "pageCounts";
+
+    private final Cache cache;
+
+    public PageCountCache(CacheManager cacheManager) {
+        this.cache = Objects.requireNonNull(cacheManager.getCache(PAGE_COUNTS_CACHE), "cache " + PAGE_COUNTS_CACHE + " not configured");
+    }
+
+    public long countBooks(Book filter, LongSupplier counter) {
+        return count(new SimpleKey("books", filter.getId(), lowerCase(filter.getTitle()), lowerCase(filter.getAuthor()),
+                lowerCase(filter.getIsbn()), filter.getAvailable()), counter);
+    }
+
+    public long countLoans(LoanFilterRequest filter, LongSupplier counter) {
+        return count(new SimpleKey("loans", filter.getIsbn(), filter.getCustomer(), filter.isHistory()), counter);
+    }
+
+    public long countLoansByBook(Book book, boolean history, LongSupplier counter) {
+        return count(new SimpleKey("loansByBook", book.getId(), history), counter);
+    }
+
+    private long count(SimpleKey key, LongSupplier counter) {
+        Long count = cache.get(key, counter::getAsLong);
+        return count == null ? counter.getAsLong() : count;
+    }
+
+    private String lowerCase(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,31 +1,77 @@
 package com.github.fabbaraujo.libraryapi.service;
 
-import com.github.fabbaraujo.libraryapi.model.entity.Loan;
+import com.github.fabbaraujo.libraryapi.service.index.LoanDueIndex;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Objects;
 
 @Service
 @RequiredArgsConstructor
 public class ScheduleService {
 
-    private static final String CRON_LATE_LOANS = "0 0 0 1/1 * ?";
-
     @Value("${application.mail.lateloans.message}")
     private String message;
 
+    @Value("${application.mail.lateloans.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${application.mail.lateloans.recipients-per-message:50}")
+    private int recipientsPerMessage;
+
     private final LoanService loanService;
     private final EmailService emailService;
+    private final LoanDueIndex dueIndex;
+    private final MeterRegistry registry;
 
-    @Scheduled(cron = CRON_LATE_LOANS)
+    @Scheduled(fixedDelayString = "${application.loans.overdue.poll-interval-ms:60000}")
     public void sendEmailToLateLoans() {
-        List<Loan> allLateLoans = loanService.getAllLateLoans();
-        List<String> emailsList = allLateLoans.stream()
-                .map(Loan::getCustomerEmail).toList();
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = "SUCCESS";
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            notifyLateLoans(dueIndex.pollDue(now), now);
+            dueIndex.saveCheckpoint(now);
+        } catch (RuntimeException e) {
+            outcome = "ERROR";
+            throw e;
+        } finally {
+            sample.stop(registry.timer("library.lateloans.job", "outcome", outcome));
+        }
+    }
+
+    @Scheduled(cron = "${application.loans.overdue.reconcile-cron:0 15 * * * ?}")
+    public void reconcileDueLoans() {
+        dueIndex.reconcile();
+    }
+
+    private void notifyLateLoans(List<Long> dueIds, LocalDateTime now) {
+        for (int start = 0; start < dueIds.size(); start += chunkSize) {
+            List<Long> chunkIds = dueIds.subList(start, Math.min(start + chunkSize, dueIds.size()));
+            List<LateLoan> chunk = loanService.getOpenLateLoans(chunkIds);
+            List<String> emails = chunk.stream()
+                    .map(LateLoan::getCustomerEmail)
+                    .filter(Objects::nonNull)
+                    .distinct()
+                    .toList();
+            sendInBatches(emails);
+            dueIndex.acknowledge(chunkIds, now);
+            registry.counter("library.lateloans.loans").increment(chunk.size());
+        }
+    }
 
-        emailService.sendEmail(message, emailsList);
+    private void sendInBatches(List<String> emails) {
+        int messages = 0;
+        for (int start = 0; start < emails.size(); start += recipientsPerMessage) {
+            emailService.sendEmail(message, emails.subList(start, Math.min(start + recipientsPerMessage, emails.size())));
+            messages++;
+        }
+        registry.counter("library.lateloans.messages").increment(messages);
     }
 }
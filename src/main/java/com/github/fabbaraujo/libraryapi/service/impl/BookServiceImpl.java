@@ -1,37 +1,166 @@
 package com.github.fabbaraujo.libraryapi.service.impl;
 
+import com.github.fabbaraujo.libraryapi.api.response.BookImportResult;
+import com.github.fabbaraujo.libraryapi.api.response.BookResponse;
+import com.github.fabbaraujo.libraryapi.config.ReplicaRoutingDataSource;
 import com.github.fabbaraujo.libraryapi.exception.BusinessException;
 import com.github.fabbaraujo.libraryapi.model.repository.BookRepository;
 import com.github.fabbaraujo.libraryapi.model.entity.Book;
+import com.github.fabbaraujo.libraryapi.model.repository.Keyset;
+import com.github.fabbaraujo.libraryapi.model.repository.KeysetPage;
+import com.github.fabbaraujo.libraryapi.service.BookCache;
 import com.github.fabbaraujo.libraryapi.service.BookService;
-import org.springframework.data.domain.Example;
-import org.springframework.data.domain.ExampleMatcher;
+import com.github.fabbaraujo.libraryapi.service.PageCountCache;
+import com.github.fabbaraujo.libraryapi.service.index.BookIsbnIndex;
+import com.github.fabbaraujo.libraryapi.service.index.BookSearchIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+@Slf4j
 @Service
 public class BookServiceImpl implements BookService {
 
     private final BookRepository repository;
+    private final BookIsbnIndex isbnIndex;
+    private final BookSearchIndex searchIndex;
+    private final PageCountCache pageCounts;
+    private final BookCache bookCache;
+    private final int importBatchSize;
 
-    public BookServiceImpl(BookRepository repository) {
+    public BookServiceImpl(BookRepository repository, BookIsbnIndex isbnIndex, BookSearchIndex searchIndex,
+                           PageCountCache pageCounts, BookCache bookCache,
+                           @Value("${application.books.import.batch-size:500}") int importBatchSize) {
         this.repository = repository;
+        this.isbnIndex = isbnIndex;
+        this.searchIndex = searchIndex;
+        this.pageCounts = pageCounts;
+        this.bookCache = bookCache;
+        this.importBatchSize = importBatchSize;
     }
 
     @Override
     public Book save(Book book) {
-        if(repository.existsByIsbn(book.getIsbn())) {
+        if(isbnIndex.mightContain(book.getIsbn()) && repository.existsByIsbn(book.getIsbn())) {
             throw new BusinessException("Isbn já cadastrado.");
         }
-        return repository.save(book);
+        Book savedBook = repository.save(book);
+        repository.bumpCollectionVersion();
+        isbnIndex.register(savedBook);
+        searchIndex.index(savedBook);
+        return savedBook;
     }
 
     @Override
+    public List<BookImportResult> saveAll(List<Book> books) {
+        List<BookImportResult> results = new ArrayList<>(books.size());
+        Set<String> seenIsbns = new HashSet<>();
+        for (int start = 0; start < books.size(); start += importBatchSize) {
+            List<Book> chunk = books.subList(start, Math.min(start + importBatchSize, books.size()));
+            results.addAll(saveChunk(chunk, start, seenIsbns));
+        }
+        return results;
+    }
+
+    private List<BookImportResult> saveChunk(List<Book> chunk, int offset, Set<String> seenIsbns) {
+        List<String> candidateIsbns = chunk.stream()
+                .map(Book::getIsbn)
+                .filter(isbnIndex::mightContain)
+                .toList();
+        Set<String> existingIsbns = candidateIsbns.isEmpty() ? Set.of() : repository.findExistingIsbns(candidateIsbns);
+
+        BookImportResult[] results = new BookImportResult[chunk.size()];
+        List<Book> newBooks = new ArrayList<>();
+        List<Integer> newBookPositions = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            Book book = chunk.get(i);
+            if (existingIsbns.contains(book.getIsbn()) || !seenIsbns.add(book.getIsbn())) {
+                results[i] = BookImportResult.builder()
+                        .index(offset + i)
+                        .isbn(book.getIsbn())
+                        .status(BookImportResult.Status.DUPLICATED)
+                        .message("Isbn já cadastrado.")
+                        .build();
+            } else {
+                newBooks.add(book);
+                newBookPositions.add(i);
+            }
+        }
+
+        List<Book> savedBooks;
+        try {
+            savedBooks = newBooks.isEmpty() ? List.of() : repository.insertAll(newBooks);
+        } catch (DataIntegrityViolationException e) {
+            log.warn("failed to insert a chunk of {} books at offset {}", newBooks.size(), offset, e);
+            for (int i = 0; i < newBooks.size(); i++) {
+                Book book = newBooks.get(i);
+                seenIsbns.remove(book.getIsbn());
+                int position = newBookPositions.get(i);
+                results[position] = BookImportResult.builder()
+                        .index(offset + position)
+                        .isbn(book.getIsbn())
+                        .status(BookImportResult.Status.FAILED)
+                        .message("Não foi possível gravar o livro.")
+                        .build();
+            }
+            return List.of(results);
+        }
+        if (!savedBooks.isEmpty()) {
+            repository.bumpCollectionVersion();
+        }
+        searchIndex.index(savedBooks);
+        for (int i = 0; i < savedBooks.size(); i++) {
+            Book savedBook = savedBooks.get(i);
+            isbnIndex.register(savedBook);
+            int position = newBookPositions.get(i);
+            results[position] = BookImportResult.builder()
+                    .index(offset + position)
+                    .isbn(savedBook.getIsbn())
+                    .id(savedBook.getId())
+                    .status(BookImportResult.Status.CREATED)
+                    .build();
+        }
+        return List.of(results);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Optional<Book> getById(Long id) {
-        return repository.findById(id);
+        ReplicaRoutingDataSource.pinToPrimary();
+        return bookCache.getById(id, () -> repository.findById(id));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Book> getCurrentById(Long id) {
+        return repository.findVersionById(id)
+                .flatMap(version -> bookCache.getById(id, version, () -> repository.findById(id)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long getCollectionVersion() {
+        return repository.findCollectionVersion();
     }
 
     @Override
@@ -41,6 +170,10 @@ public class BookServiceImpl implements BookService {
         }
 
         repository.delete(book);
+        repository.bumpCollectionVersion();
+        bookCache.evict(book.getId(), book.getIsbn());
+        isbnIndex.remove(book);
+        searchIndex.remove(book.getId());
     }
 
     @Override
@@ -49,23 +182,80 @@ public class BookServiceImpl implements BookService {
             throw new IllegalArgumentException("Id do livro não pode ser nulo.");
         }
 
-        return repository.save(book);
+        Book updatedBook = repository.save(book);
+        repository.bumpCollectionVersion();
+        bookCache.evict(book.getId(), book.getIsbn());
+        isbnIndex.register(updatedBook);
+        searchIndex.index(updatedBook);
+        return updatedBook;
     }
 
     @Override
-    public Page<Book> find(Book filter, Pageable pageRequest) {
-        Example<Book> example = Example.of(filter,
-                ExampleMatcher
-                        .matching()
-                        .withIgnoreCase()
-                        .withIgnoreNullValues()
-                        .withStringMatcher(ExampleMatcher.StringMatcher.CONTAINING)
-        );
-        return repository.findAll(example, pageRequest);
+    @Transactional(readOnly = true)
+    public Page<BookResponse> findResponses(Book filter, Pageable pageRequest) {
+        if (isFullTextSearch(filter, pageRequest)) {
+            return searchResponses(filter, pageRequest);
+        }
+        List<BookResponse> content = repository.findResponses(filter, pageRequest).getContent();
+        return PageableExecutionUtils.getPage(content, pageRequest,
+                () -> pageCounts.countBooks(filter, () -> repository.countResponses(filter)));
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public Slice<BookResponse> findResponseSlice(Book filter, Pageable pageRequest) {
+        if (isFullTextSearch(filter, pageRequest)) {
+            return searchResponses(filter, pageRequest);
+        }
+        return repository.findResponses(filter, pageRequest);
+    }
+
+    private Page<BookResponse> searchResponses(Book filter, Pageable pageRequest) {
+        BookSearchIndex.SearchResult result = searchIndex.search(filter.getTitle(), filter.getAuthor(), filter.getIsbn(), pageRequest);
+        List<BookResponse> books = result.getIds().isEmpty() ? List.of() : repository.findResponsesByIdIn(result.getIds());
+        Map<Long, BookResponse> booksById = books.stream()
+                .collect(Collectors.toMap(BookResponse::getId, Function.identity()));
+        return new PageImpl<>(inSearchOrder(result, booksById), pageRequest, result.getTotal());
+    }
+
+    private boolean isFullTextSearch(Book filter, Pageable pageRequest) {
+        return searchIndex.isLoaded()
+                && pageRequest.getSort().isUnsorted()
+                && filter.getAvailable() == null
+                && (StringUtils.hasText(filter.getTitle()) || StringUtils.hasText(filter.getAuthor()));
+    }
+
+    private <T> List<T> inSearchOrder(BookSearchIndex.SearchResult result, Map<Long, T> byId) {
+        return result.getIds().stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public KeysetPage<Book> find(Book filter, Keyset keyset, int size) {
+        return repository.findByKeyset(filter, keyset, size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Optional<Book> getBookByIsbn(String isbn) {
-        return repository.findByIsbn(isbn);
+        if (!isbnIndex.mightContain(isbn)) {
+            return Optional.empty();
+        }
+        ReplicaRoutingDataSource.pinToPrimary();
+        return bookCache.getByIsbn(isbn, () -> isbnIndex.findId(isbn)
+                .flatMap(repository::findById)
+                .filter(book -> isbn.equals(book.getIsbn()))
+                .or(() -> repository.findByIsbn(isbn)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportAll(Consumer<BookResponse> consumer) {
+        try (Stream<BookResponse> books = repository.streamAllResponses()) {
+            books.forEach(consumer);
+        }
     }
 }
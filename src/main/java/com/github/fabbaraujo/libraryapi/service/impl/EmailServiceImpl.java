@@ -1,33 +1,43 @@
 package com.github.fabbaraujo.libraryapi.service.impl;
 
+import com.github.fabbaraujo.libraryapi.model.entity.EmailOutbox;
+import com.github.fabbaraujo.libraryapi.model.repository.EmailOutboxRepository;
 import com.github.fabbaraujo.libraryapi.service.EmailService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Service
 @RequiredArgsConstructor
 public class EmailServiceImpl implements EmailService {
 
+    static final String SUBJECT = "Livro com empréstimo atrasado.";
+
     @Value("${application.mail.default-remetent}")
     private String remetent;
 
-    private final JavaMailSender javaMailSender;
+    private final EmailOutboxRepository repository;
 
     @Override
+    @Transactional
     public void sendEmail(String message, List<String> emailsList) {
-        String[] mails = emailsList.toArray(new String[emailsList.size()]);
-
-        SimpleMailMessage mailMessage = new SimpleMailMessage();
-        mailMessage.setFrom(remetent);
-        mailMessage.setSubject("Livro com empréstimo atrasado.");
-        mailMessage.setText(message);
-        mailMessage.setTo(mails);
-
-        javaMailSender.send(mailMessage);
+        if (emailsList.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        repository.save(EmailOutbox.builder()
+                .sender(remetent)
+                .subject(SUBJECT)
+                .text(message)
+                .recipients(String.join(",", emailsList))
+                .status(EmailOutbox.Status.PENDING)
+                .attempts(0)
+                .createdAt(now)
+                .nextAttemptAt(now)
+                .build());
     }
 }
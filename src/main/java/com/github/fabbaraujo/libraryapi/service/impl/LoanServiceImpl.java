@@ -1,33 +1,78 @@
 package com.github.fabbaraujo.libraryapi.service.impl;
 
 import com.github.fabbaraujo.libraryapi.api.request.LoanFilterRequest;
+import com.github.fabbaraujo.libraryapi.api.response.LoanResponse;
+import com.github.fabbaraujo.libraryapi.api.response.LoanReturnResult;
 import com.github.fabbaraujo.libraryapi.exception.BusinessException;
 import com.github.fabbaraujo.libraryapi.model.entity.Book;
 import com.github.fabbaraujo.libraryapi.model.entity.Loan;
+import com.github.fabbaraujo.libraryapi.model.repository.BookRepository;
+import com.github.fabbaraujo.libraryapi.model.repository.CollectionVersion;
+import com.github.fabbaraujo.libraryapi.model.repository.Keyset;
+import com.github.fabbaraujo.libraryapi.model.repository.KeysetPage;
+import com.github.fabbaraujo.libraryapi.model.repository.LoanHistoryRepository;
 import com.github.fabbaraujo.libraryapi.model.repository.LoanRepository;
+import com.github.fabbaraujo.libraryapi.service.BookCache;
+import com.github.fabbaraujo.libraryapi.service.LateLoan;
 import com.github.fabbaraujo.libraryapi.service.LoanService;
+import com.github.fabbaraujo.libraryapi.service.PageCountCache;
+import com.github.fabbaraujo.libraryapi.service.index.LoanDueIndex;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class LoanServiceImpl implements LoanService {
     private final LoanRepository repository;
+    private final BookRepository bookRepository;
+    private final LoanHistoryRepository historyRepository;
+    private final PageCountCache pageCounts;
+    private final BookCache bookCache;
+    private final LoanDueIndex dueIndex;
 
-    public LoanServiceImpl(LoanRepository repository) {
+    public LoanServiceImpl(LoanRepository repository, BookRepository bookRepository,
+                           LoanHistoryRepository historyRepository, PageCountCache pageCounts,
+                           BookCache bookCache, LoanDueIndex dueIndex) {
         this.repository = repository;
+        this.bookRepository = bookRepository;
+        this.historyRepository = historyRepository;
+        this.pageCounts = pageCounts;
+        this.bookCache = bookCache;
+        this.dueIndex = dueIndex;
     }
 
     @Override
+    @Transactional
     public Loan save(Loan loan) {
-        if(repository.existsByBookAndNotReturned(loan.getBook())) {
+        try {
+            if (bookRepository.checkout(loan.getBook().getId()) == 0) {
+                throw new BusinessException("Book already loaned.");
+            }
+        } catch (ConcurrencyFailureException e) {
             throw new BusinessException("Book already loaned.");
         }
-        return repository.save(loan);
+        bookRepository.bumpCollectionVersion();
+        bookCache.evict(loan.getBook().getId(), loan.getBook().getIsbn());
+        Loan savedLoan = repository.save(loan);
+        dueIndex.track(savedLoan.getId(), savedLoan.getLoanDate());
+        return savedLoan;
     }
 
     @Override
@@ -36,24 +81,163 @@ public class LoanServiceImpl implements LoanService {
     }
 
     @Override
-    public Loan update(Loan loan) {
-        return repository.save(loan);
+    @Transactional
+    public Optional<Loan> updateReturned(Long id, boolean returned) {
+        Optional<Loan> loan = repository.findById(id);
+        loan.filter(stored -> returned != Boolean.TRUE.equals(stored.getReturned()))
+                .ifPresent(stored -> changeReturned(stored, returned));
+        return loan;
+    }
+
+    private void changeReturned(Loan loan, boolean returned) {
+        if (returned) {
+            bookRepository.release(loan.getBook().getId());
+            dueIndex.untrack(loan.getId());
+        } else {
+            if (bookRepository.checkout(loan.getBook().getId()) == 0) {
+                throw new BusinessException("Book already loaned.");
+            }
+            dueIndex.track(loan.getId(), loan.getLoanDate());
+        }
+        bookRepository.bumpCollectionVersion();
+        bookCache.evict(loan.getBook().getId(), loan.getBook().getIsbn());
+        loan.setReturned(returned);
+        repository.save(loan);
+    }
+
+    @Override
+    @Transactional
+    public List<LoanReturnResult> returnAll(List<Long> ids, List<String> isbns) {
+        Map<Long, LoanRepository.ReturnEntry> entriesById = ids.isEmpty() ? Map.of() : repository
+                .findReturnEntriesByIdIn(ids).stream()
+                .collect(Collectors.toMap(LoanRepository.ReturnEntry::getId, Function.identity()));
+        Map<String, LoanRepository.ReturnEntry> openEntriesByIsbn = isbns.isEmpty() ? Map.of() : repository
+                .findOpenReturnEntriesByIsbnIn(isbns).stream()
+                .collect(Collectors.toMap(LoanRepository.ReturnEntry::getIsbn, Function.identity(), (first, second) -> first));
+
+        List<LoanReturnResult> results = new ArrayList<>(ids.size() + isbns.size());
+        Map<Long, LoanRepository.ReturnEntry> returning = new LinkedHashMap<>();
+        for (Long id : ids) {
+            LoanRepository.ReturnEntry entry = entriesById.get(id);
+            if (entry == null) {
+                results.add(returnResult(id, null, LoanReturnResult.Status.NOT_FOUND, "Loan not found."));
+            } else {
+                results.add(markReturning(entry, returning));
+            }
+        }
+        for (String isbn : isbns) {
+            LoanRepository.ReturnEntry entry = openEntriesByIsbn.get(isbn);
+            if (entry == null) {
+                results.add(returnResult(null, isbn, LoanReturnResult.Status.NOT_FOUND, "No open loan for passed isbn."));
+            } else {
+                results.add(markReturning(entry, returning));
+            }
+        }
+
+        if (!returning.isEmpty()) {
+            if (repository.markReturned(returning.keySet()) != returning.size()) {
+                throw new ConcurrencyFailureException("Loans changed while being returned.");
+            }
+            bookRepository.releaseAll(returning.values().stream()
+                    .map(LoanRepository.ReturnEntry::getBookId)
+                    .collect(Collectors.toSet()));
+            bookRepository.bumpCollectionVersion();
+            returning.values().forEach(entry -> bookCache.evict(entry.getBookId(), entry.getIsbn()));
+            dueIndex.untrackAll(returning.keySet());
+        }
+        return results;
+    }
+
+    private LoanReturnResult markReturning(LoanRepository.ReturnEntry entry, Map<Long, LoanRepository.ReturnEntry> returning) {
+        if (Boolean.TRUE.equals(entry.getReturned()) || returning.putIfAbsent(entry.getId(), entry) != null) {
+            return returnResult(entry.getId(), entry.getIsbn(), LoanReturnResult.Status.ALREADY_RETURNED, "Loan already returned.");
+        }
+        return returnResult(entry.getId(), entry.getIsbn(), LoanReturnResult.Status.RETURNED, null);
+    }
+
+    private LoanReturnResult returnResult(Long id, String isbn, LoanReturnResult.Status status, String message) {
+        return LoanReturnResult.builder()
+                .id(id)
+                .isbn(isbn)
+                .status(status)
+                .message(message)
+                .build();
     }
 
     @Override
-    public Page<Loan> find(LoanFilterRequest filterRequest, Pageable pageable) {
-        return repository.findByBookIsbnOrCustomer(filterRequest.getIsbn(), filterRequest.getCustomer(), pageable);
+    @Transactional(readOnly = true)
+    public Page<LoanResponse> findResponses(LoanFilterRequest filterRequest, Pageable pageable) {
+        List<LoanResponse> content = findResponseSlice(filterRequest, pageable).getContent();
+        return PageableExecutionUtils.getPage(content, pageable, () -> pageCounts.countLoans(filterRequest, () -> filterRequest.isHistory()
+                ? historyRepository.countByBookIsbnOrCustomer(filterRequest.getIsbn(), filterRequest.getCustomer())
+                : repository.countByBookIsbnOrCustomer(filterRequest.getIsbn(), filterRequest.getCustomer())));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<LoanResponse> findResponseSlice(LoanFilterRequest filterRequest, Pageable pageable) {
+        if (filterRequest.isHistory()) {
+            return historyRepository.findResponsesByBookIsbnOrCustomer(filterRequest.getIsbn(), filterRequest.getCustomer(), pageable);
+        }
+        return repository.findResponsesByBookIsbnOrCustomer(filterRequest.getIsbn(), filterRequest.getCustomer(), pageable);
     }
 
     @Override
-    public Page<Loan> getLoansByBook(Book book, Pageable pageable) {
-        return repository.findByBook(book, pageable);
+    @Transactional(readOnly = true)
+    public KeysetPage<Loan> find(LoanFilterRequest filterRequest, Keyset keyset, int size) {
+        return repository.findByKeyset(filterRequest.getIsbn(), filterRequest.getCustomer(), keyset, size);
     }
 
     @Override
-    public List<Loan> getAllLateLoans() {
-        final Integer loanDays = 4;
-        LocalDate threeDaysAgo = LocalDate.now().minusDays(loanDays);
-        return repository.findByLoanDateLessThenAndNotReturned(threeDaysAgo);
+    @Transactional(readOnly = true)
+    public Page<LoanResponse> getLoanResponsesByBook(Book book, boolean history, Pageable pageable) {
+        List<LoanResponse> content = getLoanResponseSliceByBook(book, history, pageable).getContent();
+        return PageableExecutionUtils.getPage(content, pageable, () -> pageCounts.countLoansByBook(book, history,
+                () -> history ? historyRepository.countByBook(book) : repository.countByBook(book)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<LoanResponse> getLoanResponseSliceByBook(Book book, boolean history, Pageable pageable) {
+        return history ? historyRepository.findResponsesByBook(book, pageable) : repository.findResponsesByBook(book, pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CollectionVersion getCollectionVersionByBook(Book book) {
+        return repository.findCollectionVersionByBook(book);
+    }
+
+    @Override
+    public List<LateLoan> getOpenLateLoans(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return repository.findOpenLateLoansByIdIn(ids).stream()
+                .map(entry -> new LateLoan(entry.getId(), entry.getCustomerEmail()))
+                .toList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportAll(Consumer<LoanResponse> consumer) {
+        try (Stream<LoanResponse> loans = repository.streamAllResponses()) {
+            loans.forEach(consumer);
+        }
+    }
+
+    @Override
+    @Transactional
+    public int archiveReturned(LocalDate before, int batchSize) {
+        List<Long> ids = repository.findArchivableIds(before, PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        int copied = repository.copyToArchive(ids);
+        int deleted = repository.deleteArchived(ids);
+        if (copied != deleted) {
+            throw new ConcurrencyFailureException("Loans changed while being archived.");
+        }
+        return deleted;
     }
 }
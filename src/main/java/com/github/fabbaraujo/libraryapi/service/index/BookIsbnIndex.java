@@ -0,0 +1,90 @@
+package com.github.fabbaraujo.libraryapi.service.index;
+
+import com.github.fabbaraujo.libraryapi.model.entity.Book;
+import com.github.fabbaraujo.libraryapi.model.repository.BookRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory isbn -> book id index. Until it is loaded, {@link #mightContain(String)} always answers
+ * true so that lookups keep going to the database.
+ */
+@Slf4j
+@Component
+public class BookIsbnIndex {
+
+    private final BookRepository repository;
+    private final long expectedInsertions;
+    private final double falsePositiveProbability;
+
+    private final Map<String, Long> idsByIsbn = new ConcurrentHashMap<>();
+    private final Map<Long, String> isbnsById = new ConcurrentHashMap<>();
+    private volatile BloomFilter filter;
+    private volatile boolean loaded;
+
+    public BookIsbnIndex(BookRepository repository,
+                         @Value("${application.books.isbn-index.expected-insertions:1000000}") long expectedInsertions,
+                         @Value("${application.books.isbn-index.false-positive-probability:0.01}") double falsePositiveProbability) {
+        this.repository = repository;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.filter = new BloomFilter(expectedInsertions, falsePositiveProbability);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<BookRepository.IsbnEntry> entries = repository.findAllIsbnEntries();
+        rebuild(entries);
+        log.info("isbn index loaded with {} books", entries.size());
+    }
+
+    private synchronized void rebuild(List<BookRepository.IsbnEntry> entries) {
+        BloomFilter loadingFilter = new BloomFilter(Math.max(expectedInsertions, entries.size() * 2L), falsePositiveProbability);
+        idsByIsbn.keySet().forEach(loadingFilter::put);
+        entries.forEach(entry -> {
+            loadingFilter.put(entry.getIsbn());
+            idsByIsbn.putIfAbsent(entry.getIsbn(), entry.getId());
+            isbnsById.putIfAbsent(entry.getId(), entry.getIsbn());
+        });
+        this.filter = loadingFilter;
+        this.loaded = true;
+    }
+
+    public boolean mightContain(String isbn) {
+        return !loaded || (isbn != null && filter.mightContain(isbn));
+    }
+
+    public Optional<Long> findId(String isbn) {
+        return isbn == null ? Optional.empty() : Optional.ofNullable(idsByIsbn.get(isbn));
+    }
+
+    public synchronized void register(Book book) {
+        if (book.getId() == null || book.getIsbn() == null) {
+            return;
+        }
+        filter.put(book.getIsbn());
+        idsByIsbn.put(book.getIsbn(), book.getId());
+        String previousIsbn = isbnsById.put(book.getId(), book.getIsbn());
+        if (previousIsbn != null && !previousIsbn.equals(book.getIsbn())) {
+            idsByIsbn.remove(previousIsbn, book.getId());
+        }
+    }
+
+    public synchronized void remove(Book book) {
+        if (book.getId() == null) {
+            return;
+        }
+        String isbn = isbnsById.remove(book.getId());
+        if (isbn != null) {
+            idsByIsbn.remove(isbn, book.getId());
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.github.fabbaraujo.libraryapi.service.index;
+
+import com.github.fabbaraujo.libraryapi.api.response.BookResponse;
+import com.github.fabbaraujo.libraryapi.model.entity.Book;
+import com.github.fabbaraujo.libraryapi.model.repository.BookRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.*;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+@Slf4j
+@Component
+public class BookSearchIndex {
+
+    private static final String ID = "id";
+    private static final String TITLE = "title";
+    private static final String AUTHOR = "author";
+    private static final String ISBN = "isbn";
+
+    private final BookRepository repository;
+    private final Analyzer analyzer;
+    private final Directory directory;
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+    private volatile boolean loaded;
+
+    public BookSearchIndex(BookRepository repository) throws IOException {
+        this.repository = repository;
+        this.analyzer = new FoldingAnalyzer();
+        this.directory = new ByteBuffersDirectory();
+        this.writer = new IndexWriter(directory, new IndexWriterConfig(analyzer));
+        this.searcherManager = new SearcherManager(writer, null);
+    }
+
+    @Transactional(readOnly = true)
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        AtomicLong count = new AtomicLong();
+        try (Stream<BookResponse> books = repository.streamAllResponses()) {
+            books.forEach(book -> {
+                write(book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn());
+                count.incrementAndGet();
+            });
+        }
+        refresh();
+        this.loaded = true;
+        log.info("search index loaded with {} books", count.get());
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public void index(Book book) {
+        index(List.of(book));
+    }
+
+    public void index(Collection<Book> books) {
+        books.forEach(book -> write(book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn()));
+        refresh();
+    }
+
+    public void remove(Long id) {
+        try {
+            writer.deleteDocuments(new Term(ID, String.valueOf(id)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        refresh();
+    }
+
+    public SearchResult search(String title, String author, String isbn, Pageable pageable) {
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        addTextClauses(builder, TITLE, title);
+        addTextClauses(builder, AUTHOR, author);
+        if (isbn != null && !isbn.isBlank()) {
+            builder.add(new WildcardQuery(new Term(ISBN, "*" + escapeWildcard(isbn.toLowerCase()) + "*")), BooleanClause.Occur.FILTER);
+        }
+        Query query = builder.build();
+
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                int total = searcher.count(query);
+                int end = (int) Math.min(pageable.getOffset() + pageable.getPageSize(), Integer.MAX_VALUE);
+                if (total == 0 || pageable.getOffset() >= total) {
+                    return new SearchResult(List.of(), total);
+                }
+                ScoreDoc[] hits = searcher.search(query, Math.min(end, total)).scoreDocs;
+                List<Long> ids = new ArrayList<>();
+                for (int i = (int) pageable.getOffset(); i < hits.length; i++) {
+                    ids.add(Long.valueOf(searcher.doc(hits[i].doc).get(ID)));
+                }
+                return new SearchResult(ids, total);
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    private void addTextClauses(BooleanQuery.Builder builder, String field, String text) {
+        if (text == null) {
+            return;
+        }
+        for (String token : tokenize(field, text)) {
+            Query exact = new BoostQuery(new TermQuery(new Term(field, token)), 2f);
+            Query prefix = new PrefixQuery(new Term(field, token));
+            builder.add(new BooleanQuery.Builder()
+                    .add(exact, BooleanClause.Occur.SHOULD)
+                    .add(prefix, BooleanClause.Occur.SHOULD)
+                    .build(), BooleanClause.Occur.MUST);
+        }
+    }
+
+    private static String escapeWildcard(String text) {
+        return text.replace("\\", "\\\\")
+                .replace("*", "\\*")
+                .replace("?", "\\?");
+    }
+
+    private List<String> tokenize(String field, String text) {
+        List<String> tokens = new ArrayList<>();
+        try (TokenStream stream = analyzer.tokenStream(field, text)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                tokens.add(term.toString());
+            }
+            stream.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return tokens;
+    }
+
+    private void write(Long id, String title, String author, String isbn) {
+        if (id == null) {
+            return;
+        }
+        Document document = new Document();
+        document.add(new StringField(ID, String.valueOf(id), Field.Store.YES));
+        if (title != null) {
+            document.add(new TextField(TITLE, title, Field.Store.NO));
+        }
+        if (author != null) {
+            document.add(new TextField(AUTHOR, author, Field.Store.NO));
+        }
+        if (isbn != null) {
+            document.add(new StringField(ISBN, isbn.toLowerCase(), Field.Store.NO));
+        }
+        try {
+            writer.updateDocument(new Term(ID, String.valueOf(id)), document);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void refresh() {
+        try {
+            searcherManager.maybeRefreshBlocking();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @lombok.Value
+    public static class SearchResult {
+        List<Long> ids;
+        long total;
+    }
+
+    private static class FoldingAnalyzer extends Analyzer {
+
+        @Override
+        protected TokenStreamComponents createComponents(String fieldName) {
+            Tokenizer tokenizer = new StandardTokenizer();
+            TokenStream stream = new LowerCaseFilter(tokenizer);
+            stream = new ASCIIFoldingFilter(stream);
+            return new TokenStreamComponents(tokenizer, stream);
+        }
+
+        @Override
+        protected TokenStream normalize(String fieldName, TokenStream in) {
+            return new ASCIIFoldingFilter(new LowerCaseFilter(in));
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.github.fabbaraujo.libraryapi.service.index;
+
+import com.github.fabbaraujo.libraryapi.model.entity.JobCheckpoint;
+import com.github.fabbaraujo.libraryapi.model.repository.JobCheckpointRepository;
+import com.github.fabbaraujo.libraryapi.model.repository.LoanRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * In-memory queue of the next overdue notices for open loans, ordered by notice time. The first notice is
+ * due with the loan and the following ones every {@code reminder-interval-ms} until it is returned. Loaded
+ * on startup, resuming from the last persisted notice time, and periodically reconciled with the database.
+ */
+@Slf4j
+@Component
+public class LoanDueIndex implements MeterBinder {
+
+    private static final int LOAN_DAYS = 4;
+    private static final String JOB = "loan-due-notices";
+
+    private final LoanRepository repository;
+    private final JobCheckpointRepository checkpoints;
+    private final Duration reminderInterval;
+    private final int chunkSize;
+
+    private final NavigableSet<DueLoan> queue = new TreeSet<>(Comparator
+            .comparing(DueLoan::getNotifyAt)
+            .thenComparing(DueLoan::getId));
+    private final Map<Long, DueLoan> loansById = new HashMap<>();
+    private LocalDateTime notifiedUntil = LocalDateTime.now();
+    private long version;
+
+    public LoanDueIndex(LoanRepository repository,
+                        JobCheckpointRepository checkpoints,
+                        @Value("${application.loans.overdue.reminder-interval-ms:86400000}") long reminderInterval,
+                        @Value("${application.loans.overdue.chunk-size:1000}") int chunkSize) {
+        this.repository = repository;
+        this.checkpoints = checkpoints;
+        this.reminderInterval = Duration.ofMillis(reminderInterval);
+        this.chunkSize = chunkSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        checkpoints.findById(JOB)
+                .map(JobCheckpoint::getLastRunAt)
+                .ifPresent(this::restoreNotifiedUntil);
+        log.info("loan due index loaded with {} open loans", reconcile());
+    }
+
+    public int reconcile() {
+        long startedAt = currentVersion();
+        Set<Long> openIds = new HashSet<>();
+        int added = 0;
+        List<LoanRepository.DueEntry> chunk = repository.findOpenDueEntriesAfter(0L, PageRequest.of(0, chunkSize));
+        while (!chunk.isEmpty()) {
+            for (LoanRepository.DueEntry entry : chunk) {
+                openIds.add(entry.getId());
+                if (trackIfAbsent(entry.getId(), entry.getLoanDate())) {
+                    added++;
+                }
+            }
+            chunk = repository.findOpenDueEntriesAfter(chunk.get(chunk.size() - 1).getId(), PageRequest.of(0, chunkSize));
+        }
+        int removed = removeClosed(openIds, startedAt);
+        if (added > 0 || removed > 0) {
+            log.info("loan due index reconciled, {} loans added and {} removed", added, removed);
+        }
+        return openIds.size();
+    }
+
+    public synchronized void track(Long id, LocalDate loanDate) {
+        if (id == null || loanDate == null) {
+            return;
+        }
+        untrack(id);
+        add(id, loanDate);
+    }
+
+    public synchronized void untrack(Long id) {
+        DueLoan loan = loansById.remove(id);
+        if (loan != null) {
+            queue.remove(loan);
+        }
+    }
+
+    public synchronized void untrackAll(Collection<Long> ids) {
+        ids.forEach(this::untrack);
+    }
+
+    /**
+     * Returns the loans whose notice is due at {@code now} without changing the queue: they stay due until
+     * {@link #acknowledge(Collection, LocalDateTime)} confirms their notices were handed over.
+     */
+    public synchronized List<Long> pollDue(LocalDateTime now) {
+        List<Long> ids = new ArrayList<>();
+        for (DueLoan due : queue) {
+            if (due.getNotifyAt().isAfter(now)) {
+                break;
+            }
+            ids.add(due.getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Moves the notices of {@code ids} that were due at {@code now} to their next reminder.
+     */
+    public synchronized void acknowledge(Collection<Long> ids, LocalDateTime now) {
+        for (Long id : ids) {
+            DueLoan due = loansById.get(id);
+            if (due != null && !due.getNotifyAt().isAfter(now)) {
+                queue.remove(due);
+                DueLoan next = new DueLoan(id, nextNotice(due.getNotifyAt(), now), due.getVersion());
+                queue.add(next);
+                loansById.put(id, next);
+            }
+        }
+    }
+
+    /**
+     * Records that every notice due up to {@code now} was sent, both for loans tracked from now on and across
+     * restarts.
+     */
+    public void saveCheckpoint(LocalDateTime now) {
+        checkpoints.save(new JobCheckpoint(JOB, advanceNotifiedUntil(now)));
+    }
+
+    public synchronized int size() {
+        return loansById.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("library.loans.due.tracked", this, LoanDueIndex::size).register(registry);
+    }
+
+    private synchronized LocalDateTime advanceNotifiedUntil(LocalDateTime now) {
+        if (now.isAfter(notifiedUntil)) {
+            notifiedUntil = now;
+        }
+        return notifiedUntil;
+    }
+
+    private synchronized void restoreNotifiedUntil(LocalDateTime lastRunAt) {
+        notifiedUntil = lastRunAt;
+    }
+
+    private synchronized long currentVersion() {
+        return version;
+    }
+
+    private synchronized boolean trackIfAbsent(Long id, LocalDate loanDate) {
+        if (loansById.containsKey(id)) {
+            return false;
+        }
+        add(id, loanDate);
+        return true;
+    }
+
+    private synchronized int removeClosed(Set<Long> openIds, long startedAt) {
+        List<Long> closed = loansById.values().stream()
+                .filter(loan -> loan.getVersion() <= startedAt)
+                .map(DueLoan::getId)
+                .filter(id -> !openIds.contains(id))
+                .toList();
+        untrackAll(closed);
+        return closed.size();
+    }
+
+    private void add(Long id, LocalDate loanDate) {
+        LocalDateTime dueAt = loanDate.plusDays(LOAN_DAYS).atStartOfDay();
+        LocalDateTime notifyAt = dueAt.isAfter(notifiedUntil) ? dueAt : nextNotice(dueAt, notifiedUntil);
+        DueLoan loan = new DueLoan(id, notifyAt, ++version);
+        queue.add(loan);
+        loansById.put(id, loan);
+    }
+
+    private LocalDateTime nextNotice(LocalDateTime notifiedAt, LocalDateTime after) {
+        long elapsed = Duration.between(notifiedAt, after).toMillis() / reminderInterval.toMillis();
+        return notifiedAt.plus(reminderInterval.multipliedBy(Math.max(elapsed, 0) + 1));
+    }
+
+    @lombok.Value
+    private static class DueLoan {
+        Long id;
+        LocalDateTime notifyAt;
+        long version;
+    }
+}
@@ -0,0 +1,47 @@
+create sequence book_seq start with 1 increment by 50;
+
+create table book (
+    id bigint not null,
+    title varchar(255),
+    author varchar(255),
+    isbn varchar(255),
+    available boolean,
+    version bigint,
+    primary key (id)
+);
+
+create index idx_book_available on book (available);
+
+create table loan (
+    id bigint generated by default as identity,
+    customer varchar(255),
+    customer_email varchar(255),
+    id_book bigint,
+    loan_date date,
+    returned boolean,
+    primary key (id),
+    constraint fk_loan_book foreign key (id_book) references book (id)
+);
+
+create table email_outbox (
+    id bigint generated by default as identity,
+    sender varchar(255),
+    subject varchar(255),
+    text clob,
+    recipients clob,
+    status varchar(255),
+    attempts integer,
+    next_attempt_at timestamp,
+    created_at timestamp,
+    sent_at timestamp,
+    last_error varchar(1000),
+    primary key (id)
+);
+
+create table job_checkpoint (
+    job varchar(255) not null,
+    run_date date,
+    last_processed_id bigint,
+    completed boolean,
+    primary key (job)
+);
@@ -0,0 +1,7 @@
+create unique index uk_book_isbn on book (isbn);
+
+create index idx_loan_book_returned on loan (id_book, returned);
+
+create index idx_loan_date_returned on loan (loan_date, returned);
+
+create index idx_loan_customer on loan (customer);
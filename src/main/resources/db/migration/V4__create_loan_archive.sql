@@ -0,0 +1,21 @@
+create table loan_archive (
+    id bigint not null,
+    customer varchar(255),
+    customer_email varchar(255),
+    id_book bigint,
+    loan_date date,
+    returned boolean,
+    version bigint default 0 not null,
+    archived_at timestamp not null,
+    primary key (id),
+    constraint fk_loan_archive_book foreign key (id_book) references book (id)
+);
+
+create index idx_loan_archive_book on loan_archive (id_book);
+
+create index idx_loan_archive_customer on loan_archive (customer);
+
+create view loan_history as
+    select id, customer, customer_email, id_book, loan_date, returned, false as archived from loan
+    union all
+    select id, customer, customer_email, id_book, loan_date, returned, true as archived from loan_archive;
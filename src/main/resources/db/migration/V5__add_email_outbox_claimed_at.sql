@@ -0,0 +1 @@
+alter table email_outbox add column claimed_at timestamp;
@@ -0,0 +1,4 @@
+alter table job_checkpoint add column last_run_at timestamp;
+alter table job_checkpoint drop column run_date;
+alter table job_checkpoint drop column last_processed_id;
+alter table job_checkpoint drop column completed;
@@ -0,0 +1,9 @@
+update book set available = not exists (
+    select 1 from loan l where l.id_book = book.id and (l.returned is null or l.returned = false)
+) where available is null;
+update book set version = 0 where version is null;
+
+alter table book alter column available set default true;
+alter table book alter column available set not null;
+alter table book alter column version set default 0;
+alter table book alter column version set not null;
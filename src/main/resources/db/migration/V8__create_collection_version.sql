@@ -0,0 +1,7 @@
+create table collection_version (
+    name varchar(255) not null,
+    version bigint default 0 not null,
+    primary key (name)
+);
+
+insert into collection_version (name, version) values ('book', 0);
@@ -0,0 +1,99 @@
+package com.github.fabbaraujo.libraryapi.api.async;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+class DatabaseTaskRunnerTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private DatabaseTaskRunner runner;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        runner.stopExecutor();
+    }
+
+    @Test
+    @DisplayName("Deve executar a consulta na thread da requisição quando o modo assíncrono estiver desligado.")
+    void runInlineWhenDisabledTest() throws Exception {
+        runner = createRunner(false, 10_000);
+
+        CompletableFuture<String> result = runner.supply(() -> Thread.currentThread().getName());
+
+        assertThat(result.isDone()).isTrue();
+        assertThat(result.get()).isEqualTo(Thread.currentThread().getName());
+    }
+
+    @Test
+    @DisplayName("Deve executar a consulta no pool do banco quando o modo assíncrono estiver ligado.")
+    void runOnDatabaseExecutorTest() throws Exception {
+        runner = createRunner(true, 10_000);
+
+        String thread = runner.supply(() -> Thread.currentThread().getName()).get(5, TimeUnit.SECONDS);
+
+        assertThat(thread).startsWith("database-");
+    }
+
+    @Test
+    @DisplayName("Deve responder 503 quando a fila do pool do banco estiver cheia.")
+    void rejectWhenQueueIsFullTest() {
+        runner = createRunner(true, 10_000);
+        runner.supply(this::awaitRelease);
+        runner.supply(this::awaitRelease);
+
+        CompletableFuture<String> rejected = runner.supply(() -> "ok");
+
+        assertThat(unavailable(rejected)).isTrue();
+        assertThat(runner.getRejectedCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve responder 503 quando a consulta não terminar dentro do tempo limite.")
+    void timeoutTest() {
+        runner = createRunner(true, 50);
+
+        CompletableFuture<String> slow = runner.supply(this::awaitRelease);
+
+        assertThat(unavailable(slow)).isTrue();
+        assertThat(runner.getTimedOutCount()).isEqualTo(1);
+    }
+
+    private DatabaseTaskRunner createRunner(boolean enabled, long timeout) {
+        DatabaseTaskRunner runner = new DatabaseTaskRunner();
+        ReflectionTestUtils.setField(runner, "enabled", enabled);
+        ReflectionTestUtils.setField(runner, "poolSize", 1);
+        ReflectionTestUtils.setField(runner, "queueCapacity", 1);
+        ReflectionTestUtils.setField(runner, "timeout", timeout);
+        runner.startExecutor();
+        return runner;
+    }
+
+    private String awaitRelease() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "ok";
+    }
+
+    private boolean unavailable(CompletableFuture<?> future) {
+        Throwable exception = catchThrowable(() -> future.get(5, TimeUnit.SECONDS));
+        return exception instanceof ExecutionException
+                && exception.getCause() instanceof ResponseStatusException status
+                && status.getStatus() == HttpStatus.SERVICE_UNAVAILABLE;
+    }
+}
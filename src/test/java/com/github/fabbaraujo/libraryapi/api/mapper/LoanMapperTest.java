@@ -0,0 +1,63 @@
+package com.github.fabbaraujo.libraryapi.api.mapper;
+
+import com.github.fabbaraujo.libraryapi.api.request.BookRequest;
+import com.github.fabbaraujo.libraryapi.api.response.BookResponse;
+import com.github.fabbaraujo.libraryapi.api.response.LoanResponse;
+import com.github.fabbaraujo.libraryapi.model.entity.Book;
+import com.github.fabbaraujo.libraryapi.model.entity.Loan;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+class LoanMapperTest {
+
+    BookMapper bookMapper = new BookMapper();
+    LoanMapper loanMapper = new LoanMapper(bookMapper);
+
+    @Test
+    @DisplayName("Deve converter uma requisição em livro.")
+    void bookRequestToEntityTest() {
+        BookRequest request = BookRequest.builder()
+                .id(1L)
+                .title("As aventuras")
+                .author("Fulano")
+                .isbn("123")
+                .build();
+
+        Book book = bookMapper.toEntity(request);
+
+        assertThat(book.getId()).isEqualTo(1L);
+        assertThat(book.getTitle()).isEqualTo("As aventuras");
+        assertThat(book.getAuthor()).isEqualTo("Fulano");
+        assertThat(book.getIsbn()).isEqualTo("123");
+    }
+
+    @Test
+    @DisplayName("Deve converter um empréstimo em resposta com o livro.")
+    void loanToResponseTest() {
+        Book book = Book.builder()
+                .id(1L)
+                .title("As aventuras")
+                .author("Fulano")
+                .isbn("123")
+                .build();
+        Loan loan = Loan.builder()
+                .id(2L)
+                .book(book)
+                .customer("Fulano")
+                .customerEmail("customer@email.com")
+                .loanDate(LocalDate.now())
+                .build();
+
+        LoanResponse response = loanMapper.toResponse(loan);
+
+        assertThat(response.getId()).isEqualTo(2L);
+        assertThat(response.getIsbn()).isEqualTo("123");
+        assertThat(response.getCustomer()).isEqualTo("Fulano");
+        assertThat(response.getCustomerEmail()).isEqualTo("customer@email.com");
+        assertThat(response.getBook()).isEqualTo(new BookResponse(1L, "As aventuras", "Fulano", "123"));
+    }
+}
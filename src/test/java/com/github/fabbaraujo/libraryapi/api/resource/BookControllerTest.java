@@ -1,11 +1,22 @@
 package com.github.fabbaraujo.libraryapi.api.resource;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.fabbaraujo.libraryapi.api.async.DatabaseTaskRunner;
+import com.github.fabbaraujo.libraryapi.api.mapper.BookMapper;
+import com.github.fabbaraujo.libraryapi.api.mapper.LoanMapper;
+import com.github.fabbaraujo.libraryapi.api.pagination.CursorCodec;
 import com.github.fabbaraujo.libraryapi.api.request.BookRequest;
+import com.github.fabbaraujo.libraryapi.api.response.BookImportResult;
+import com.github.fabbaraujo.libraryapi.api.response.BookResponse;
+import com.github.fabbaraujo.libraryapi.api.response.LoanResponse;
 import com.github.fabbaraujo.libraryapi.exception.BusinessException;
 import com.github.fabbaraujo.libraryapi.model.entity.Book;
+import com.github.fabbaraujo.libraryapi.model.repository.CollectionVersion;
+import com.github.fabbaraujo.libraryapi.model.repository.Keyset;
+import com.github.fabbaraujo.libraryapi.model.repository.KeysetPage;
 import com.github.fabbaraujo.libraryapi.service.BookService;
 import com.github.fabbaraujo.libraryapi.service.LoanService;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -15,9 +26,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -27,8 +41,12 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -36,6 +54,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @ActiveProfiles("test")
 @WebMvcTest(controllers = BookController.class)
 @AutoConfigureMockMvc
+@Import({BookMapper.class, LoanMapper.class, DatabaseTaskRunner.class})
 class BookControllerTest {
 
     static String BOOK_API = "/api/books";
@@ -49,6 +68,11 @@ class BookControllerTest {
     @MockBean
     private LoanService loanService;
 
+    @BeforeEach
+    public void setup() {
+        BDDMockito.given(service.getCollectionVersion()).willReturn(1L);
+    }
+
     @Test
     @DisplayName("Deve criar um livro com sucesso.")
     void createBookTest() throws Exception {
@@ -127,8 +151,9 @@ class BookControllerTest {
                 .author(createNewBookRequest().getAuthor())
                 .title(createNewBookRequest().getTitle())
                 .isbn(createNewBookRequest().getIsbn())
+                .version(0L)
                 .build();
-        BDDMockito.given(service.getById(id)).willReturn(Optional.of(book));
+        BDDMockito.given(service.getCurrentById(id)).willReturn(Optional.of(book));
 
         final MockHttpServletRequestBuilder request = MockMvcRequestBuilders
                 .get(BOOK_API.concat("/").concat(id.toString()))
@@ -136,6 +161,7 @@ class BookControllerTest {
 
         mvc.perform(request)
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"0\""))
                 .andExpect(jsonPath("id").value(id))
                 .andExpect(jsonPath("title").value(createNewBookRequest().getTitle()))
                 .andExpect(jsonPath("author").value(createNewBookRequest().getAuthor()))
@@ -146,7 +172,7 @@ class BookControllerTest {
     @DisplayName("Deve retornar not found quando não encontrar o livro.")
     void bookNotFoundException() throws Exception {
 
-        BDDMockito.given(service.getById(Mockito.anyLong())).willReturn(Optional.empty());
+        BDDMockito.given(service.getCurrentById(Mockito.anyLong())).willReturn(Optional.empty());
 
         final MockHttpServletRequestBuilder request = MockMvcRequestBuilders
                 .get(BOOK_API.concat("/").concat("1"))
@@ -249,10 +275,10 @@ class BookControllerTest {
                 .author(createNewBookRequest().getAuthor())
                 .build();
 
-        BDDMockito.given(service.find(
+        BDDMockito.given(service.findResponses(
                 Mockito.any(Book.class), Mockito.any(Pageable.class))
         ).willReturn(
-                new PageImpl<Book>(List.of(book),
+                new PageImpl<BookResponse>(List.of(new BookResponse(id, book.getTitle(), book.getAuthor(), book.getIsbn())),
                         PageRequest.of(0, 100), 1)
         );
 
@@ -262,14 +288,287 @@ class BookControllerTest {
                 .get(BOOK_API.concat(queryString))
                 .accept(MediaType.APPLICATION_JSON);
 
-        mvc.perform(request)
+        mvc.perform(asyncDispatch(mvc.perform(request).andReturn()))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("content", hasSize(1)))
                 .andExpect(jsonPath("totalElements").value(1))
+                .andExpect(header().string("ETag", "\"1\""))
                 .andExpect(jsonPath("pageable.pageSize").value(100))
                 .andExpect(jsonPath("pageable.pageNumber").value(0));
     }
 
+    @Test
+    @DisplayName("Deve filtrar livros disponíveis.")
+    void findAvailableBooksTest() throws Exception {
+        BDDMockito.given(service.findResponses(
+                Mockito.any(Book.class), Mockito.any(Pageable.class))
+        ).willReturn(
+                new PageImpl<BookResponse>(List.of(), PageRequest.of(0, 20), 0)
+        );
+
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("?available=true")).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        Mockito.verify(service).findResponses(
+                Mockito.argThat(filter -> Boolean.TRUE.equals(filter.getAvailable())), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Deve filtrar livros sem contar o total quando count=false.")
+    void findBooksWithoutCountTest() throws Exception {
+        BDDMockito.given(service.findResponseSlice(
+                Mockito.any(Book.class), Mockito.any(Pageable.class))
+        ).willReturn(
+                new SliceImpl<BookResponse>(List.of(new BookResponse(1L, "As aventuras", "Autor", "001")),
+                        PageRequest.of(0, 1), true)
+        );
+
+        final MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?author=Autor&count=false&page=0&size=1"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc.perform(asyncDispatch(mvc.perform(request).andReturn()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(1)))
+                .andExpect(jsonPath("last").value(false))
+                .andExpect(jsonPath("totalElements").doesNotExist());
+        Mockito.verify(service, Mockito.never()).findResponses(Mockito.any(Book.class), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Deve criar livros em lote a partir de um array json.")
+    void createBooksBatchTest() throws Exception {
+        BookRequest invalid = BookRequest.builder().isbn("456").build();
+        String json = new ObjectMapper().writeValueAsString(List.of(createNewBookRequest(), invalid));
+        BDDMockito.given(service.saveAll(Mockito.anyList())).willReturn(List.of(
+                BookImportResult.builder().index(0).isbn("123").id(1L).status(BookImportResult.Status.CREATED).build()
+        ));
+
+        final MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(BOOK_API.concat("/batch"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("[0].status").value("CREATED"))
+                .andExpect(jsonPath("[0].id").value(1))
+                .andExpect(jsonPath("[1].status").value("INVALID"))
+                .andExpect(jsonPath("[1].index").value(1))
+                .andExpect(jsonPath("[1].isbn").value("456"));
+    }
+
+    @Test
+    @DisplayName("Deve retornar erro ao receber um lote json com itens nulos.")
+    void createBooksBatchWithNullItemTest() throws Exception {
+        String json = "[" + new ObjectMapper().writeValueAsString(createNewBookRequest()) + ", null]";
+
+        final MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(BOOK_API.concat("/batch"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        mvc.perform(request)
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors[0]").value("O lote não pode conter itens nulos."));
+        Mockito.verify(service, Mockito.never()).saveAll(Mockito.anyList());
+    }
+
+    @Test
+    @DisplayName("Deve criar livros em lote a partir de json delimitado por linhas.")
+    void createBooksBatchFromNdjsonTest() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        String body = "not json\n" + objectMapper.writeValueAsString(createNewBookRequest()) + "\nnull\n";
+        BDDMockito.given(service.saveAll(Mockito.anyList())).willReturn(List.of(
+                BookImportResult.builder().index(0).isbn("123").status(BookImportResult.Status.DUPLICATED).build()
+        ));
+
+        final MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(BOOK_API.concat("/batch"))
+                .contentType("application/x-ndjson")
+                .accept(MediaType.APPLICATION_JSON)
+                .content(body);
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("[0].status").value("INVALID"))
+                .andExpect(jsonPath("[1].status").value("DUPLICATED"))
+                .andExpect(jsonPath("[1].index").value(1))
+                .andExpect(jsonPath("[2].status").value("INVALID"))
+                .andExpect(jsonPath("[2].index").value(2));
+    }
+
+    @Test
+    @DisplayName("Deve filtrar livros paginando por cursor.")
+    void findBooksByCursorTest() throws Exception {
+        Book book = Book.builder()
+                .id(1L)
+                .title(createNewBookRequest().getTitle())
+                .isbn(createNewBookRequest().getIsbn())
+                .author(createNewBookRequest().getAuthor())
+                .build();
+        Keyset next = Keyset.first(Sort.by("title")).next(book.getTitle(), book.getId());
+        BDDMockito.given(service.find(Mockito.any(Book.class), Mockito.any(Keyset.class), Mockito.anyInt()))
+                .willReturn(new KeysetPage<>(List.of(book), next));
+
+        final MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?author=Autor&cursor=&size=1&sort=title"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc.perform(asyncDispatch(mvc.perform(request).andReturn()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(1)))
+                .andExpect(jsonPath("hasNext").value(true))
+                .andExpect(jsonPath("nextCursor").isNotEmpty())
+                .andExpect(jsonPath("totalElements").doesNotExist());
+        Mockito.verify(service).find(Mockito.any(Book.class), Mockito.eq(Keyset.first(Sort.by("title"))), Mockito.eq(1));
+    }
+
+    @Test
+    @DisplayName("Deve distinguir no cursor um título nulo de um título vazio.")
+    void findBooksByNullValueCursorTest() throws Exception {
+        Keyset nullTitle = Keyset.first(Sort.by("title")).next(null, 1L);
+        Keyset emptyTitle = Keyset.first(Sort.by("title")).next("", 1L);
+        BDDMockito.given(service.find(Mockito.any(Book.class), Mockito.any(Keyset.class), Mockito.anyInt()))
+                .willReturn(new KeysetPage<>(List.of(), null));
+
+        mvc.perform(asyncDispatch(mvc.perform(MockMvcRequestBuilders
+                        .get(BOOK_API.concat("?cursor=" + CursorCodec.encode(nullTitle)))
+                        .accept(MediaType.APPLICATION_JSON)).andReturn()))
+                .andExpect(status().isOk());
+        mvc.perform(asyncDispatch(mvc.perform(MockMvcRequestBuilders
+                        .get(BOOK_API.concat("?cursor=" + CursorCodec.encode(emptyTitle)))
+                        .accept(MediaType.APPLICATION_JSON)).andReturn()))
+                .andExpect(status().isOk());
+
+        Mockito.verify(service).find(Mockito.any(Book.class), Mockito.eq(nullTitle), Mockito.eq(20));
+        Mockito.verify(service).find(Mockito.any(Book.class), Mockito.eq(emptyTitle), Mockito.eq(20));
+    }
+
+    @Test
+    @DisplayName("Deve retornar erro ao receber um cursor inválido.")
+    void findBooksByInvalidCursorTest() throws Exception {
+        final MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?cursor=***"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc.perform(request)
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors[0]").value("Cursor inválido."));
+    }
+
+    @Test
+    @DisplayName("Deve exportar o catálogo em json delimitado por linhas.")
+    void exportBooksTest() throws Exception {
+        BDDMockito.willAnswer(invocation -> {
+            Consumer<BookResponse> consumer = invocation.getArgument(0);
+            consumer.accept(new BookResponse(1L, "Meu Livro", "Autor", "123"));
+            consumer.accept(new BookResponse(2L, "Outro Livro", "Autor", "321"));
+            return null;
+        }).given(service).exportAll(Mockito.any());
+
+        final MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/export"))
+                .accept("application/x-ndjson");
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andExpect(content().string(
+                        "{\"id\":1,\"title\":\"Meu Livro\",\"author\":\"Autor\",\"isbn\":\"123\"}\n" +
+                        "{\"id\":2,\"title\":\"Outro Livro\",\"author\":\"Autor\",\"isbn\":\"321\"}\n"));
+    }
+
+    @Test
+    @DisplayName("Deve responder not modified quando a versão do livro não mudou.")
+    void getBookDetailsNotModifiedTest() throws Exception {
+        BDDMockito.given(service.getCurrentById(1L)).willReturn(Optional.of(Book.builder().id(1L).version(3L).build()));
+
+        final MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/1"))
+                .header("If-None-Match", "\"3\"")
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc.perform(request)
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @DisplayName("Deve responder not modified quando a listagem de livros não mudou.")
+    void findBooksNotModifiedTest() throws Exception {
+        final MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?title=Meu&page=0&size=100"))
+                .header("If-None-Match", "W/\"0\", \"1\"")
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc.perform(asyncDispatch(mvc.perform(request).andReturn()))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"1\""));
+
+        Mockito.verify(service, Mockito.never()).findResponses(Mockito.any(Book.class), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Deve responder not modified quando os empréstimos do livro não mudaram.")
+    void loansByBookNotModifiedTest() throws Exception {
+        Book book = Book.builder().id(1L).isbn("123").version(2L).build();
+        BDDMockito.given(service.getById(1L)).willReturn(Optional.of(book));
+        BDDMockito.given(loanService.getCollectionVersionByBook(book)).willReturn(collectionVersion(4L, 9L, 5L));
+
+        final MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/1/loans"))
+                .header("If-None-Match", "\"2-4-9-5\"")
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc.perform(request)
+                .andExpect(status().isNotModified());
+
+        Mockito.verify(loanService, Mockito.never()).getLoanResponsesByBook(Mockito.any(Book.class), Mockito.anyBoolean(), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Deve buscar o histórico de empréstimos do livro incluindo os arquivados.")
+    void loansByBookHistoryTest() throws Exception {
+        Book book = Book.builder().id(1L).isbn("123").version(2L).build();
+        BDDMockito.given(service.getById(1L)).willReturn(Optional.of(book));
+        BDDMockito.given(loanService.getCollectionVersionByBook(book)).willReturn(collectionVersion(1L, 9L, 0L));
+        BDDMockito.given(loanService.getLoanResponsesByBook(Mockito.eq(book), Mockito.eq(true), Mockito.any(Pageable.class)))
+                .willReturn(new PageImpl<>(List.of(new LoanResponse(3L, "Fulano", null, 1L, null, null, "123")), PageRequest.of(0, 20), 1));
+
+        final MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/1/loans?history=true"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc.perform(asyncDispatch(mvc.perform(request).andReturn()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(1)))
+                .andExpect(jsonPath("totalElements").value(1));
+    }
+
+    private CollectionVersion collectionVersion(Long count, Long maxId, Long versionSum) {
+        return new CollectionVersion() {
+            @Override
+            public Long getCount() {
+                return count;
+            }
+
+            @Override
+            public Long getMaxId() {
+                return maxId;
+            }
+
+            @Override
+            public Long getVersionSum() {
+                return versionSum;
+            }
+        };
+    }
+
     private BookRequest createNewBookRequest() {
         return BookRequest.builder()
                 .author("Autor")
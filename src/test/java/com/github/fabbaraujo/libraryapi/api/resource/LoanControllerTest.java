@@ -1,12 +1,21 @@
 package com.github.fabbaraujo.libraryapi.api.resource;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.fabbaraujo.libraryapi.api.async.DatabaseTaskRunner;
+import com.github.fabbaraujo.libraryapi.api.mapper.BookMapper;
+import com.github.fabbaraujo.libraryapi.api.mapper.LoanMapper;
+import com.github.fabbaraujo.libraryapi.api.pagination.CursorCodec;
 import com.github.fabbaraujo.libraryapi.api.request.LoanFilterRequest;
 import com.github.fabbaraujo.libraryapi.api.request.LoanRequest;
+import com.github.fabbaraujo.libraryapi.api.request.LoanReturnRequest;
 import com.github.fabbaraujo.libraryapi.api.request.ReturnedLoanRequest;
+import com.github.fabbaraujo.libraryapi.api.response.LoanResponse;
+import com.github.fabbaraujo.libraryapi.api.response.LoanReturnResult;
 import com.github.fabbaraujo.libraryapi.exception.BusinessException;
 import com.github.fabbaraujo.libraryapi.model.entity.Book;
 import com.github.fabbaraujo.libraryapi.model.entity.Loan;
+import com.github.fabbaraujo.libraryapi.model.repository.Keyset;
+import com.github.fabbaraujo.libraryapi.model.repository.KeysetPage;
 import com.github.fabbaraujo.libraryapi.service.BookService;
 import com.github.fabbaraujo.libraryapi.service.LoanService;
 import org.hamcrest.Matchers;
@@ -19,9 +28,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -32,14 +45,17 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
 @WebMvcTest(controllers = LoanController.class)
 @AutoConfigureMockMvc
+@Import({BookMapper.class, LoanMapper.class, DatabaseTaskRunner.class})
 class LoanControllerTest {
 
     static final String LOAN_API = "/api/loans";
@@ -143,7 +159,7 @@ class LoanControllerTest {
         Loan loan = Loan.builder()
                 .id(1L)
                 .build();
-        BDDMockito.given(loanService.getById(Mockito.anyLong())).willReturn(Optional.of(loan));
+        BDDMockito.given(loanService.updateReturned(1L, true)).willReturn(Optional.of(loan));
 
         final MockHttpServletRequestBuilder request = MockMvcRequestBuilders
                 .patch(LOAN_API.concat("/1"))
@@ -154,7 +170,65 @@ class LoanControllerTest {
         mvc.perform(request)
                 .andExpect(status().isOk());
 
-        Mockito.verify(loanService, Mockito.times(1)).update(loan);
+        Mockito.verify(loanService, Mockito.times(1)).updateReturned(1L, true);
+    }
+
+    @Test
+    @DisplayName("Deve devolver empréstimos em lote.")
+    void returnBooksTest() throws Exception {
+        LoanReturnRequest requestBody = LoanReturnRequest.builder().ids(List.of(1L, 2L)).isbns(List.of("123")).build();
+        String json = new ObjectMapper().writeValueAsString(requestBody);
+        BDDMockito.given(loanService.returnAll(List.of(1L, 2L), List.of("123"))).willReturn(List.of(
+                LoanReturnResult.builder().id(1L).isbn("321").status(LoanReturnResult.Status.RETURNED).build(),
+                LoanReturnResult.builder().id(2L).status(LoanReturnResult.Status.NOT_FOUND).message("Loan not found.").build(),
+                LoanReturnResult.builder().id(3L).isbn("123").status(LoanReturnResult.Status.RETURNED).build()));
+
+        final MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .patch(LOAN_API.concat("/returns"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("[1].status").value("NOT_FOUND"))
+                .andExpect(jsonPath("[2].id").value(3));
+
+        Mockito.verify(loanService, Mockito.never()).updateReturned(Mockito.anyLong(), Mockito.anyBoolean());
+    }
+
+    @Test
+    @DisplayName("Deve recusar devoluções em lote com ids nulos.")
+    void returnBooksWithNullIdTest() throws Exception {
+        final MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .patch(LOAN_API.concat("/returns"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content("{\"ids\": [1, null]}");
+
+        mvc.perform(request)
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors", hasSize(1)));
+
+        Mockito.verify(loanService, Mockito.never()).returnAll(Mockito.anyList(), Mockito.anyList());
+    }
+
+    @Test
+    @DisplayName("Deve retornar conflito quando os empréstimos mudarem durante a devolução em lote.")
+    void returnBooksConcurrentChangeTest() throws Exception {
+        BDDMockito.given(loanService.returnAll(List.of(1L), List.of()))
+                .willThrow(new ConcurrencyFailureException("Loans changed while being returned."));
+
+        final MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .patch(LOAN_API.concat("/returns"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content("{\"ids\": [1]}");
+
+        mvc.perform(request)
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("errors[0]").value("Resource changed by another request, try again."));
     }
 
     @Test
@@ -162,7 +236,7 @@ class LoanControllerTest {
     void returnInexistentBookTest() throws Exception {
         ReturnedLoanRequest requestBody = ReturnedLoanRequest.builder().returned(true).build();
         String json = new ObjectMapper().writeValueAsString(requestBody);
-        BDDMockito.given(loanService.getById(Mockito.anyLong())).willReturn(Optional.empty());
+        BDDMockito.given(loanService.updateReturned(Mockito.anyLong(), Mockito.anyBoolean())).willReturn(Optional.empty());
 
         final MockHttpServletRequestBuilder request = MockMvcRequestBuilders
                 .patch(LOAN_API.concat("/1"))
@@ -182,10 +256,11 @@ class LoanControllerTest {
         loan.setId(id);
         loan.setBook(Book.builder().id(1L).isbn("123").build());
 
-        BDDMockito.given(loanService.find(
+        BDDMockito.given(loanService.findResponses(
                 Mockito.any(LoanFilterRequest.class), Mockito.any(Pageable.class))
         ).willReturn(
-                new PageImpl<Loan>(List.of(loan),
+                new PageImpl<LoanResponse>(List.of(new LoanResponse(id, loan.getCustomer(), loan.getCustomerEmail(),
+                        1L, null, null, "123")),
                         PageRequest.of(0, 10), 1)
         );
 
@@ -195,7 +270,7 @@ class LoanControllerTest {
                 .get(LOAN_API.concat(queryString))
                 .accept(MediaType.APPLICATION_JSON);
 
-        mvc.perform(request)
+        mvc.perform(asyncDispatch(mvc.perform(request).andReturn()))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("content", hasSize(1)))
                 .andExpect(jsonPath("totalElements").value(1))
@@ -203,6 +278,90 @@ class LoanControllerTest {
                 .andExpect(jsonPath("pageable.pageNumber").value(0));
     }
 
+    @Test
+    @DisplayName("Deve filtrar empréstimos sem contar o total quando count=false.")
+    void findLoansWithoutCountTest() throws Exception {
+        BDDMockito.given(loanService.findResponseSlice(
+                Mockito.any(LoanFilterRequest.class), Mockito.any(Pageable.class))
+        ).willReturn(
+                new SliceImpl<LoanResponse>(List.of(new LoanResponse(1L, "Fulano", null, 1L, null, null, "123")),
+                        PageRequest.of(0, 10), false)
+        );
+
+        final MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(LOAN_API.concat("?customer=Fulano&count=false"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc.perform(asyncDispatch(mvc.perform(request).andReturn()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(1)))
+                .andExpect(jsonPath("last").value(true))
+                .andExpect(jsonPath("totalElements").doesNotExist());
+        Mockito.verify(loanService, Mockito.never()).findResponses(Mockito.any(LoanFilterRequest.class), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Deve buscar os empréstimos de um cliente.")
+    void findLoansByCustomerTest() throws Exception {
+        BDDMockito.given(loanService.findResponses(
+                Mockito.any(LoanFilterRequest.class), Mockito.any(Pageable.class))
+        ).willReturn(
+                new PageImpl<LoanResponse>(List.of(new LoanResponse(1L, "Fulano", null, 1L, null, null, "123")),
+                        PageRequest.of(0, 20), 1)
+        );
+
+        final MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(LOAN_API.concat("/customers/Fulano?history=true"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc.perform(asyncDispatch(mvc.perform(request).andReturn()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(1)))
+                .andExpect(jsonPath("totalElements").value(1));
+        Mockito.verify(loanService).findResponses(
+                Mockito.eq(LoanFilterRequest.builder().customer("Fulano").history(true).build()), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Deve filtrar empréstimos paginando por cursor.")
+    void findLoansByCursorTest() throws Exception {
+        Loan loan = createLoan();
+        loan.setId(5L);
+        Keyset cursor = Keyset.first(Sort.by("id")).next(4L, 4L);
+        BDDMockito.given(loanService.find(Mockito.any(LoanFilterRequest.class), Mockito.any(Keyset.class), Mockito.anyInt()))
+                .willReturn(new KeysetPage<>(List.of(loan), null));
+
+        final MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(LOAN_API.concat("?customer=Fulano&cursor=" + CursorCodec.encode(cursor)))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc.perform(asyncDispatch(mvc.perform(request).andReturn()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(1)))
+                .andExpect(jsonPath("hasNext").value(false))
+                .andExpect(jsonPath("nextCursor").doesNotExist());
+        Mockito.verify(loanService).find(Mockito.any(LoanFilterRequest.class), Mockito.eq(cursor), Mockito.eq(20));
+    }
+
+    @Test
+    @DisplayName("Deve exportar o histórico de empréstimos em json delimitado por linhas.")
+    void exportLoansTest() throws Exception {
+        BDDMockito.willAnswer(invocation -> {
+            Consumer<LoanResponse> consumer = invocation.getArgument(0);
+            consumer.accept(new LoanResponse(1L, "Fulano", "customer@email.com", 1L, "Meu Livro", "Autor", "123"));
+            return null;
+        }).given(loanService).exportAll(Mockito.any());
+
+        final MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(LOAN_API.concat("/export"))
+                .accept("application/x-ndjson");
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(content().string(Matchers.endsWith("\n")))
+                .andExpect(content().string(Matchers.containsString("\"isbn\":\"123\"")));
+    }
+
     public Loan createLoan() {
         Book book = Book.builder()
                 .id(1L)
@@ -0,0 +1,65 @@
+package com.github.fabbaraujo.libraryapi.benchmark;
+
+import com.github.fabbaraujo.libraryapi.api.response.BookResponse;
+import com.github.fabbaraujo.libraryapi.model.entity.Book;
+import com.github.fabbaraujo.libraryapi.service.BookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookQueryBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private BookService service;
+
+    @Setup
+    public void setup() {
+        context = SeededDatabase.start();
+        service = context.getBean(BookService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<BookResponse> findByIsbn() {
+        Book filter = Book.builder()
+                .isbn(SeededDatabase.isbn(ThreadLocalRandom.current().nextInt(SeededDatabase.BOOKS)))
+                .build();
+        return service.findResponses(filter, PageRequest.of(0, 20));
+    }
+
+    @Benchmark
+    public Page<BookResponse> findByAuthorSorted() {
+        Book filter = Book.builder()
+                .author("Autor " + ThreadLocalRandom.current().nextInt(500))
+                .build();
+        return service.findResponses(filter, PageRequest.of(0, 20, Sort.by("id")));
+    }
+
+    @Benchmark
+    public Page<BookResponse> findByTitleSearchIndex() {
+        Book filter = Book.builder()
+                .title("aventuras " + ThreadLocalRandom.current().nextInt(SeededDatabase.BOOKS))
+                .build();
+        return service.findResponses(filter, PageRequest.of(0, 20));
+    }
+
+    @Benchmark
+    public Page<BookResponse> findAllPage() {
+        return service.findResponses(new Book(), PageRequest.of(ThreadLocalRandom.current().nextInt(100), 20));
+    }
+}
@@ -0,0 +1,63 @@
+package com.github.fabbaraujo.libraryapi.benchmark;
+
+import com.github.fabbaraujo.libraryapi.api.response.LoanResponse;
+import com.github.fabbaraujo.libraryapi.model.entity.Loan;
+import com.github.fabbaraujo.libraryapi.model.repository.Keyset;
+import com.github.fabbaraujo.libraryapi.model.repository.KeysetPage;
+import com.github.fabbaraujo.libraryapi.model.repository.LoanRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoanQueryBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private LoanRepository repository;
+
+    @Setup
+    public void setup() {
+        context = SeededDatabase.start();
+        repository = context.getBean(LoanRepository.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Slice<LoanResponse> findResponsesByBookIsbnOrCustomer() {
+        int i = ThreadLocalRandom.current().nextInt(SeededDatabase.BOOKS);
+        return repository.findResponsesByBookIsbnOrCustomer(SeededDatabase.isbn(i), "Cliente " + (i % 1_000), PageRequest.of(0, 20));
+    }
+
+    @Benchmark
+    public KeysetPage<Loan> findByKeyset() {
+        String customer = "Cliente " + ThreadLocalRandom.current().nextInt(1_000);
+        return repository.findByKeyset(null, customer, Keyset.first(Sort.by("id")), 20);
+    }
+
+    @Benchmark
+    public List<LoanRepository.DueEntry> findOpenDueEntriesChunk() {
+        return repository.findOpenDueEntriesAfter(0L, PageRequest.of(0, 500));
+    }
+
+    @Benchmark
+    public List<LoanRepository.LateLoanEntry> findOpenLateLoansByIdIn() {
+        long first = ThreadLocalRandom.current().nextInt(SeededDatabase.LOANS - 500) + 1;
+        return repository.findOpenLateLoansByIdIn(LongStream.range(first, first + 500).boxed().toList());
+    }
+}
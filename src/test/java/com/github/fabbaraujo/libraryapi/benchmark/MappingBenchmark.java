@@ -0,0 +1,82 @@
+package com.github.fabbaraujo.libraryapi.benchmark;
+
+import com.github.fabbaraujo.libraryapi.api.mapper.BookMapper;
+import com.github.fabbaraujo.libraryapi.api.mapper.LoanMapper;
+import com.github.fabbaraujo.libraryapi.api.response.BookResponse;
+import com.github.fabbaraujo.libraryapi.api.response.LoanResponse;
+import com.github.fabbaraujo.libraryapi.model.entity.Book;
+import com.github.fabbaraujo.libraryapi.model.entity.Loan;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+
+    private ModelMapper modelMapper;
+    private BookMapper bookMapper;
+    private LoanMapper loanMapper;
+    private List<Loan> loans;
+
+    @Setup
+    public void setup() {
+        modelMapper = new ModelMapper();
+        bookMapper = new BookMapper();
+        loanMapper = new LoanMapper(bookMapper);
+        loans = IntStream.range(0, PAGE_SIZE)
+                .mapToObj(i -> Loan.builder()
+                        .id((long) i)
+                        .customer("Fulano " + i)
+                        .customerEmail("fulano" + i + "@email.com")
+                        .loanDate(LocalDate.now())
+                        .book(Book.builder()
+                                .id((long) i)
+                                .title("As aventuras " + i)
+                                .author("Autor " + i)
+                                .isbn(String.valueOf(i))
+                                .build())
+                        .build())
+                .toList();
+    }
+
+    @Benchmark
+    public List<LoanResponse> modelMapperLoanPage() {
+        return loans.stream()
+                .map(loan -> {
+                    BookResponse bookResponse = modelMapper.map(loan.getBook(), BookResponse.class);
+                    LoanResponse loanResponse = modelMapper.map(loan, LoanResponse.class);
+                    loanResponse.setBook(bookResponse);
+                    return loanResponse;
+                }).toList();
+    }
+
+    @Benchmark
+    public List<LoanResponse> loanMapperLoanPage() {
+        return loans.stream().map(loanMapper::toResponse).toList();
+    }
+
+    @Benchmark
+    public List<BookResponse> modelMapperBookPage() {
+        return loans.stream()
+                .map(loan -> modelMapper.map(loan.getBook(), BookResponse.class))
+                .toList();
+    }
+
+    @Benchmark
+    public List<BookResponse> bookMapperBookPage() {
+        return loans.stream()
+                .map(loan -> bookMapper.toResponse(loan.getBook()))
+                .toList();
+    }
+}
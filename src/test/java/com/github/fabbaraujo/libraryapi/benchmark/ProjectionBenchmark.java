@@ -0,0 +1,101 @@
+package com.github.fabbaraujo.libraryapi.benchmark;
+
+import com.github.fabbaraujo.libraryapi.api.mapper.BookMapper;
+import com.github.fabbaraujo.libraryapi.api.mapper.LoanMapper;
+import com.github.fabbaraujo.libraryapi.api.request.LoanFilterRequest;
+import com.github.fabbaraujo.libraryapi.api.response.BookResponse;
+import com.github.fabbaraujo.libraryapi.api.response.LoanResponse;
+import com.github.fabbaraujo.libraryapi.model.entity.Book;
+import com.github.fabbaraujo.libraryapi.model.entity.Loan;
+import com.github.fabbaraujo.libraryapi.service.BookService;
+import com.github.fabbaraujo.libraryapi.service.LoanService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the DTO projection queries behind the list endpoints with loading the same page as entities and mapping
+ * them, which is how those endpoints worked before. The entity baseline only lives here.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProjectionBenchmark {
+
+    private static final Pageable PAGE = PageRequest.of(0, 100, Sort.by("id"));
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private LoanService loanService;
+    private BookMapper bookMapper;
+    private LoanMapper loanMapper;
+    private EntityManager entityManager;
+    private TransactionTemplate readOnlyTransaction;
+    private Book bookFilter;
+    private LoanFilterRequest loanFilter;
+
+    @Setup
+    public void setup() {
+        context = SeededDatabase.start();
+        bookService = context.getBean(BookService.class);
+        loanService = context.getBean(LoanService.class);
+        bookMapper = context.getBean(BookMapper.class);
+        loanMapper = context.getBean(LoanMapper.class);
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(context.getBean(EntityManagerFactory.class));
+        readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+        bookFilter = Book.builder().author("Autor 1").build();
+        loanFilter = LoanFilterRequest.builder().customer("Cliente 7").isbn(SeededDatabase.isbn(7)).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<BookResponse> bookEntityPage() {
+        return readOnlyTransaction.execute(status -> entityManager
+                .createQuery("select b from Book b where lower(b.author) like :author order by b.id", Book.class)
+                .setParameter("author", "%" + bookFilter.getAuthor().toLowerCase() + "%")
+                .setMaxResults(PAGE.getPageSize())
+                .getResultStream()
+                .map(bookMapper::toResponse)
+                .toList());
+    }
+
+    @Benchmark
+    public List<BookResponse> bookProjectionPage() {
+        return bookService.findResponses(bookFilter, PAGE).getContent();
+    }
+
+    @Benchmark
+    public List<LoanResponse> loanEntityPage() {
+        return readOnlyTransaction.execute(status -> entityManager
+                .createQuery("select l from Loan l where l.book.isbn = :isbn or l.customer = :customer order by l.id", Loan.class)
+                .setParameter("isbn", loanFilter.getIsbn())
+                .setParameter("customer", loanFilter.getCustomer())
+                .setMaxResults(PAGE.getPageSize())
+                .getResultStream()
+                .map(loanMapper::toResponse)
+                .toList());
+    }
+
+    @Benchmark
+    public List<LoanResponse> loanProjectionPage() {
+        return loanService.findResponses(loanFilter, PAGE).getContent();
+    }
+}
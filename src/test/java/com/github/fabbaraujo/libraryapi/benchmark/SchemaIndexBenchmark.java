@@ -0,0 +1,112 @@
+package com.github.fabbaraujo.libraryapi.benchmark;
+
+import com.github.fabbaraujo.libraryapi.api.response.LoanResponse;
+import com.github.fabbaraujo.libraryapi.model.entity.Book;
+import com.github.fabbaraujo.libraryapi.model.entity.Loan;
+import com.github.fabbaraujo.libraryapi.model.repository.BookRepository;
+import com.github.fabbaraujo.libraryapi.model.repository.Keyset;
+import com.github.fabbaraujo.libraryapi.model.repository.KeysetPage;
+import com.github.fabbaraujo.libraryapi.model.repository.LoanRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the repository lookups against a million-loan database migrated to the latest schema, with
+ * ({@code true}) and without ({@code false}) the query indexes added by {@code V2}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SchemaIndexBenchmark {
+
+    static final int BOOKS = 100_000;
+    static final int LOANS = 1_000_000;
+    static final int CUSTOMERS = 10_000;
+    private static final int SEED_CHUNK = 50_000;
+
+    private static final List<String> QUERY_INDEXES =
+            List.of("uk_book_isbn", "idx_loan_book_returned", "idx_loan_date_returned", "idx_loan_customer");
+
+    @Param({"false", "true"})
+    public boolean queryIndexes;
+
+    private ConfigurableApplicationContext context;
+    private BookRepository bookRepository;
+    private LoanRepository loanRepository;
+
+    @Setup
+    public void setup() {
+        context = SeededDatabase.empty("schema-indexes-" + queryIndexes);
+        bookRepository = context.getBean(BookRepository.class);
+        loanRepository = context.getBean(LoanRepository.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        if (!queryIndexes) {
+            QUERY_INDEXES.forEach(index -> jdbcTemplate.execute("drop index " + index));
+        }
+        seed(jdbcTemplate);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<Book> findByIsbn() {
+        return bookRepository.findByIsbn(SeededDatabase.isbn(randomBookId()));
+    }
+
+    @Benchmark
+    public Optional<Boolean> bookAvailable() {
+        return bookRepository.findById((long) randomBookId()).map(Book::getAvailable);
+    }
+
+    @Benchmark
+    public Slice<LoanResponse> findResponsesByBook() {
+        return loanRepository.findResponsesByBook(randomBook(), PageRequest.of(0, 20));
+    }
+
+    @Benchmark
+    public List<LoanRepository.DueEntry> findOpenDueEntriesChunk() {
+        return loanRepository.findOpenDueEntriesAfter(0L, PageRequest.of(0, 500));
+    }
+
+    @Benchmark
+    public KeysetPage<Loan> findByCustomer() {
+        String customer = "Cliente " + ThreadLocalRandom.current().nextInt(CUSTOMERS);
+        return loanRepository.findByKeyset(null, customer, Keyset.first(Sort.by("id")), 20);
+    }
+
+    private static Book randomBook() {
+        return Book.builder().id((long) randomBookId()).version(0L).build();
+    }
+
+    private static int randomBookId() {
+        return ThreadLocalRandom.current().nextInt(BOOKS) + 1;
+    }
+
+    private static void seed(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.update("insert into book (id, title, author, isbn, available, version) " +
+                "select x, concat('As aventuras de ', x), concat('Autor ', mod(x, 500)), " +
+                "concat('978', lpad(cast(x as varchar), 10, '0')), true, 0 " +
+                "from system_range(1, ?)", BOOKS);
+        for (int start = 1; start <= LOANS; start += SEED_CHUNK) {
+            jdbcTemplate.update("insert into loan (customer, customer_email, id_book, loan_date, returned) " +
+                    "select concat('Cliente ', mod(x, ?)), concat('cliente', mod(x, ?), '@email.com'), mod(x, ?) + 1, " +
+                    "dateadd('DAY', -mod(x, 30), current_date), mod(x, 3) = 0 " +
+                    "from system_range(?, ?)", CUSTOMERS, CUSTOMERS, BOOKS, start, start + SEED_CHUNK - 1);
+        }
+    }
+}
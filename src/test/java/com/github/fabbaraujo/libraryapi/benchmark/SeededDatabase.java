@@ -0,0 +1,65 @@
+package com.github.fabbaraujo.libraryapi.benchmark;
+
+import com.github.fabbaraujo.libraryapi.LibraryApiApplication;
+import com.github.fabbaraujo.libraryapi.model.entity.Book;
+import com.github.fabbaraujo.libraryapi.model.entity.Loan;
+import com.github.fabbaraujo.libraryapi.model.repository.BookRepository;
+import com.github.fabbaraujo.libraryapi.model.repository.LoanRepository;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.IntStream;
+
+final class SeededDatabase {
+
+    static final int BOOKS = 10_000;
+    static final int LOANS = 20_000;
+
+    private SeededDatabase() {
+    }
+
+    static ConfigurableApplicationContext start() {
+        ConfigurableApplicationContext context = empty("benchmark");
+        seed(context.getBean(BookRepository.class), context.getBean(LoanRepository.class));
+        return context;
+    }
+
+    static ConfigurableApplicationContext empty(String database, String... properties) {
+        return new SpringApplicationBuilder(LibraryApiApplication.class)
+                .properties("server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "spring.jpa.show-sql=false",
+                        "logging.level.root=WARN")
+                .properties(properties)
+                .run();
+    }
+
+    static String isbn(int i) {
+        return String.format("978%010d", i);
+    }
+
+    private static void seed(BookRepository bookRepository, LoanRepository loanRepository) {
+        List<Book> books = IntStream.range(0, BOOKS)
+                .mapToObj(i -> Book.builder()
+                        .title("As aventuras de " + i)
+                        .author("Autor " + (i % 500))
+                        .isbn(isbn(i))
+                        .build())
+                .toList();
+        bookRepository.insertAll(books);
+
+        LocalDate today = LocalDate.now();
+        List<Loan> loans = IntStream.range(0, LOANS)
+                .mapToObj(i -> Loan.builder()
+                        .book(books.get(i % BOOKS))
+                        .customer("Cliente " + (i % 1_000))
+                        .customerEmail("cliente" + (i % 1_000) + "@email.com")
+                        .loanDate(today.minusDays(i % 10))
+                        .returned(i % 3 == 0)
+                        .build())
+                .toList();
+        loanRepository.saveAll(loans);
+    }
+}
@@ -0,0 +1,60 @@
+package com.github.fabbaraujo.libraryapi.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.fabbaraujo.libraryapi.api.response.BookResponse;
+import com.github.fabbaraujo.libraryapi.api.response.LoanResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"20", "100"})
+    private int pageSize;
+
+    private ObjectMapper objectMapper;
+    private Page<BookResponse> books;
+    private Page<LoanResponse> loans;
+
+    @Setup
+    public void setup() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        List<BookResponse> bookContent = IntStream.range(0, pageSize)
+                .mapToObj(i -> BookResponse.builder()
+                        .id((long) i)
+                        .title("As aventuras de " + i)
+                        .author("Autor " + i)
+                        .isbn(SeededDatabase.isbn(i))
+                        .build())
+                .toList();
+        List<LoanResponse> loanContent = IntStream.range(0, pageSize)
+                .mapToObj(i -> new LoanResponse((long) i, "Cliente " + i, "cliente" + i + "@email.com",
+                        (long) i, "As aventuras de " + i, "Autor " + i, SeededDatabase.isbn(i)))
+                .toList();
+        books = new PageImpl<>(bookContent, PageRequest.of(0, pageSize), 10_000);
+        loans = new PageImpl<>(loanContent, PageRequest.of(0, pageSize), 10_000);
+    }
+
+    @Benchmark
+    public byte[] bookPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(books);
+    }
+
+    @Benchmark
+    public byte[] loanPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(loans);
+    }
+}
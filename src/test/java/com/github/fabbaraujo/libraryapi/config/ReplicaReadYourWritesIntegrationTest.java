@@ -0,0 +1,86 @@
+package com.github.fabbaraujo.libraryapi.config;
+
+import com.github.fabbaraujo.libraryapi.api.response.BookResponse;
+import com.github.fabbaraujo.libraryapi.model.entity.Book;
+import com.github.fabbaraujo.libraryapi.service.BookService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ReplicaReadYourWritesIntegrationTest.PRIMARY_URL,
+        "application.datasource.replica.enabled=true",
+        "application.datasource.replica.url=" + ReplicaReadYourWritesIntegrationTest.REPLICA_URL,
+        "application.datasource.replica.read-your-writes=true",
+        "application.datasource.replica.max-lag-ms=" + ReplicaReadYourWritesIntegrationTest.MAX_LAG_MILLIS,
+        "application.datasource.replica.lag-check-interval-ms=60000",
+        "application.datasource.replica.max-reading-age-ms=600000"
+})
+class ReplicaReadYourWritesIntegrationTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:primary-read-your-writes;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:replica-read-your-writes;DB_CLOSE_DELAY=-1";
+    static final long MAX_LAG_MILLIS = 500;
+
+    @Autowired
+    BookService bookService;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    DataSource primary;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    DataSource replica;
+
+    @BeforeAll
+    static void migrateReplica() {
+        Flyway.configure().dataSource(REPLICA_URL, "sa", "").load().migrate();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        new JdbcTemplate(primary).update("delete from book");
+        new JdbcTemplate(replica).update("delete from book");
+    }
+
+    @Test
+    @DisplayName("Deve continuar lendo da réplica após preencher o cache a partir do primário.")
+    void lookupKeepsReplicaReadsTest() throws InterruptedException {
+        insertBook(primary, 1L, "Primário");
+        insertBook(replica, 1L, "Réplica");
+        Thread.sleep(MAX_LAG_MILLIS + 100);
+
+        assertThat(bookService.getById(1L)).map(Book::getTitle).contains("Primário");
+
+        assertThat(bookService.findResponseSlice(Book.builder().build(), PageRequest.of(0, 10)).getContent())
+                .extracting(BookResponse::getTitle)
+                .containsExactly("Réplica");
+    }
+
+    @Test
+    @DisplayName("Deve ler do primário logo após uma escrita.")
+    void writeRoutesReadsToPrimaryTest() {
+        bookService.save(Book.builder().isbn("ryw-123").title("Aventuras").author("Fulano").build());
+
+        assertThat(bookService.findResponseSlice(Book.builder().build(), PageRequest.of(0, 10)).getContent())
+                .extracting(BookResponse::getIsbn)
+                .containsExactly("ryw-123");
+    }
+
+    private void insertBook(DataSource dataSource, Long id, String title) {
+        new JdbcTemplate(dataSource).update("insert into book (id, isbn, title, author, available, version) values (?, ?, ?, ?, true, 0)",
+                id, "ryw-" + id, title, "Fulano");
+    }
+}
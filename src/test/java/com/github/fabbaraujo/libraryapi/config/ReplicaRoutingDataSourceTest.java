@@ -0,0 +1,153 @@
+package com.github.fabbaraujo.libraryapi.config;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplicaRoutingDataSourceTest {
+
+    JdbcTemplate jdbcTemplate;
+    TransactionTemplate writeTransaction;
+    TransactionTemplate readOnlyTransaction;
+    ReplicaRoutingDataSource routingDataSource;
+
+    private void setup(long maxLagMillis, boolean readYourWrites) {
+        setup(maxLagMillis, 60000, readYourWrites);
+    }
+
+    private void setup(long maxLagMillis, long maxReadingAgeMillis, boolean readYourWrites) {
+        routingDataSource = new ReplicaRoutingDataSource(node("primary"), node("replica"), maxLagMillis, maxReadingAgeMillis, readYourWrites);
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        writeTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    private DataSource node(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + "-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.execute("create table node (name varchar(20))");
+        template.update("insert into node values (?)", name);
+        return dataSource;
+    }
+
+    private String readOnlyNode() {
+        return readOnlyTransaction.execute(status -> jdbcTemplate.queryForObject("select name from node", String.class));
+    }
+
+    private String writeNode() {
+        return writeTransaction.execute(status -> jdbcTemplate.queryForObject("select name from node", String.class));
+    }
+
+    private void write() {
+        writeTransaction.executeWithoutResult(status -> {
+            jdbcTemplate.update("update node set name = name");
+            ReplicaRoutingDataSource.recordWrite();
+        });
+    }
+
+    @Test
+    @DisplayName("Deve direcionar transações somente leitura para a réplica e escritas para o primário.")
+    void routeByTransactionTypeTest() {
+        setup(1000, false);
+
+        assertThat(readOnlyNode()).isEqualTo("replica");
+        assertThat(writeNode()).isEqualTo("primary");
+        assertThat(jdbcTemplate.queryForObject("select name from node", String.class)).isEqualTo("primary");
+    }
+
+    @Test
+    @DisplayName("Deve ler do primário quando a réplica estiver indisponível ou atrasada além da tolerância.")
+    void fallbackToPrimaryTest() {
+        setup(1000, false);
+
+        routingDataSource.updateReplicaState(false, null);
+        assertThat(readOnlyNode()).isEqualTo("primary");
+
+        routingDataSource.updateReplicaState(true, 5000L);
+        assertThat(readOnlyNode()).isEqualTo("primary");
+
+        routingDataSource.updateReplicaState(true, 200L);
+        assertThat(readOnlyNode()).isEqualTo("replica");
+    }
+
+    @Test
+    @DisplayName("Deve ler do primário quando a última verificação da réplica estiver desatualizada.")
+    void staleReplicaStateTest() throws InterruptedException {
+        setup(1000, 50, false);
+        routingDataSource.updateReplicaState(true, 10L);
+        assertThat(readOnlyNode()).isEqualTo("replica");
+
+        Thread.sleep(100);
+        assertThat(readOnlyNode()).isEqualTo("primary");
+
+        routingDataSource.updateReplicaState(true, 10L);
+        assertThat(readOnlyNode()).isEqualTo("replica");
+    }
+
+    @Test
+    @DisplayName("Deve ler do primário logo após uma escrita quando read-your-writes estiver habilitado.")
+    void readYourWritesTest() throws InterruptedException {
+        setup(1000, true);
+        routingDataSource.updateReplicaState(true, 50L);
+        assertThat(readOnlyNode()).isEqualTo("replica");
+
+        write();
+        assertThat(readOnlyNode()).isEqualTo("primary");
+
+        Thread.sleep(100);
+        assertThat(readOnlyNode()).isEqualTo("replica");
+    }
+
+    @Test
+    @DisplayName("Não deve considerar escritas desfeitas para read-your-writes.")
+    void rolledBackWriteTest() {
+        setup(1000, true);
+        routingDataSource.updateReplicaState(true, 50L);
+
+        writeTransaction.execute(status -> {
+            jdbcTemplate.update("update node set name = name");
+            ReplicaRoutingDataSource.recordWrite();
+            status.setRollbackOnly();
+            return null;
+        });
+
+        assertThat(readOnlyNode()).isEqualTo("replica");
+    }
+
+    @Test
+    @DisplayName("Não deve considerar transações de escrita que apenas consultaram para read-your-writes.")
+    void readOnlyWorkInWriteTransactionTest() {
+        setup(1000, true);
+        routingDataSource.updateReplicaState(true, 50L);
+
+        assertThat(writeNode()).isEqualTo("primary");
+
+        assertThat(readOnlyNode()).isEqualTo("replica");
+    }
+
+    @Test
+    @DisplayName("Deve ler do primário em transações somente leitura fixadas no primário.")
+    void pinToPrimaryTest() {
+        setup(1000, false);
+
+        String pinned = readOnlyTransaction.execute(status -> {
+            ReplicaRoutingDataSource.pinToPrimary();
+            return jdbcTemplate.queryForObject("select name from node", String.class);
+        });
+
+        assertThat(pinned).isEqualTo("primary");
+        assertThat(readOnlyNode()).isEqualTo("replica");
+    }
+}
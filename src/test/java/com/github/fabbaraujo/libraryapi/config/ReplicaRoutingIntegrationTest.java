@@ -0,0 +1,87 @@
+package com.github.fabbaraujo.libraryapi.config;
+
+import com.github.fabbaraujo.libraryapi.api.response.BookResponse;
+import com.github.fabbaraujo.libraryapi.model.entity.Book;
+import com.github.fabbaraujo.libraryapi.service.BookService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ReplicaRoutingIntegrationTest.PRIMARY_URL,
+        "application.datasource.replica.enabled=true",
+        "application.datasource.replica.url=" + ReplicaRoutingIntegrationTest.REPLICA_URL,
+        "application.datasource.replica.read-your-writes=false",
+        "application.datasource.replica.lag-check-interval-ms=60000",
+        "application.datasource.replica.max-reading-age-ms=600000"
+})
+class ReplicaRoutingIntegrationTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:primary-routing;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:replica-routing;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    BookService bookService;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    DataSource primary;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    DataSource replica;
+
+    @BeforeAll
+    static void migrateReplica() {
+        Flyway.configure().dataSource(REPLICA_URL, "sa", "").load().migrate();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        new JdbcTemplate(primary).update("delete from book");
+        new JdbcTemplate(replica).update("delete from book");
+    }
+
+    @Test
+    @DisplayName("Deve gravar no primário e consultar na réplica.")
+    void routeServiceCallsTest() {
+        Book book = bookService.save(Book.builder().isbn("replica-123").title("Aventuras").author("Fulano").build());
+
+        assertThat(new JdbcTemplate(primary).queryForObject("select count(*) from book", Long.class)).isEqualTo(1);
+        assertThat(bookService.findResponseSlice(Book.builder().build(), PageRequest.of(0, 10)).hasContent()).isFalse();
+
+        new JdbcTemplate(replica).update("insert into book (id, isbn, title, author, available, version) values (?, ?, ?, ?, true, 0)",
+                book.getId(), book.getIsbn(), book.getTitle(), book.getAuthor());
+
+        assertThat(bookService.findResponseSlice(Book.builder().build(), PageRequest.of(0, 10)).getContent())
+                .extracting(BookResponse::getIsbn)
+                .containsExactly("replica-123");
+    }
+
+    @Test
+    @DisplayName("Deve ler a versão e o livro da mesma fonte e preencher o cache apenas a partir do primário.")
+    void routeVersionAndCacheReadsTest() {
+        Book book = bookService.save(Book.builder().isbn("replica-456").title("Aventuras").author("Fulano").build());
+
+        assertThat(bookService.getCurrentById(book.getId())).isEmpty();
+        assertThat(bookService.getById(book.getId())).isPresent();
+
+        new JdbcTemplate(replica).update("insert into book (id, isbn, title, author, available, version) values (?, ?, ?, ?, true, ?)",
+                book.getId(), book.getIsbn(), "Atrasado", book.getAuthor(), book.getVersion());
+
+        assertThat(bookService.getCurrentById(book.getId()))
+                .map(Book::getTitle)
+                .contains("Aventuras");
+    }
+}
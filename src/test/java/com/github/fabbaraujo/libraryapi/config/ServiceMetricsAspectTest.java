@@ -0,0 +1,88 @@
+package com.github.fabbaraujo.libraryapi.config;
+
+import com.github.fabbaraujo.libraryapi.model.entity.Loan;
+import com.github.fabbaraujo.libraryapi.model.repository.BookRepository;
+import com.github.fabbaraujo.libraryapi.model.repository.JobCheckpointRepository;
+import com.github.fabbaraujo.libraryapi.model.repository.LoanHistoryRepository;
+import com.github.fabbaraujo.libraryapi.model.repository.LoanRepository;
+import com.github.fabbaraujo.libraryapi.service.BookCache;
+import com.github.fabbaraujo.libraryapi.service.LoanService;
+import com.github.fabbaraujo.libraryapi.service.PageCountCache;
+import com.github.fabbaraujo.libraryapi.service.impl.LoanServiceImpl;
+import com.github.fabbaraujo.libraryapi.service.index.LoanDueIndex;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+class ServiceMetricsAspectTest {
+
+    SimpleMeterRegistry registry;
+    LoanService service;
+
+    @MockBean
+    LoanRepository repository;
+
+    @MockBean
+    BookRepository bookRepository;
+
+    @MockBean
+    LoanHistoryRepository historyRepository;
+
+    @MockBean
+    JobCheckpointRepository checkpointRepository;
+
+    @BeforeEach
+    public void setup() {
+        registry = new SimpleMeterRegistry();
+        AspectJProxyFactory factory = new AspectJProxyFactory(new LoanServiceImpl(repository, bookRepository, historyRepository,
+                new PageCountCache(new ConcurrentMapCacheManager()), new BookCache(new ConcurrentMapCacheManager()), new LoanDueIndex(repository, checkpointRepository, 86400000, 1000)));
+        factory.addAspect(new ServiceMetricsAspect(registry));
+        service = factory.getProxy();
+    }
+
+    @Test
+    @DisplayName("Deve registrar o tempo das chamadas de serviço com sucesso.")
+    void timeSuccessfulInvocationTest() {
+        Mockito.when(repository.findById(1L)).thenReturn(Optional.of(Loan.builder().id(1L).build()));
+
+        service.getById(1L);
+        service.getById(1L);
+
+        Timer timer = registry.find(ServiceMetricsAspect.METRIC_NAME)
+                .tags("service", "LoanServiceImpl", "method", "getById", "outcome", "SUCCESS")
+                .timer();
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Deve contar as chamadas de serviço com erro pela exceção lançada.")
+    void countFailedInvocationTest() {
+        Mockito.when(repository.findById(1L)).thenThrow(new IllegalStateException());
+
+        Throwable exception = catchThrowable(() -> service.getById(1L));
+
+        Timer timer = registry.find(ServiceMetricsAspect.METRIC_NAME)
+                .tags("method", "getById", "outcome", "ERROR", "exception", "IllegalStateException")
+                .timer();
+        assertThat(exception).isInstanceOf(IllegalStateException.class);
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,108 @@
+package com.github.fabbaraujo.libraryapi.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms and response status counts per operation. Latencies are recorded in microseconds from
+ * the moment a request was scheduled to start, so a stalled server also delays the requests queued behind it.
+ */
+class LatencyReport {
+
+    private static final long HIGHEST_LATENCY = TimeUnit.MINUTES.toMicros(5);
+
+    private final Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+    private final Map<Operation, Map<Integer, LongAdder>> statuses = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> failures = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> skipped = new EnumMap<>(Operation.class);
+    private Duration drain = Duration.ZERO;
+    private int abandoned;
+
+    LatencyReport() {
+        for (Operation operation : Operation.values()) {
+            histograms.put(operation, new ConcurrentHistogram(HIGHEST_LATENCY, 3));
+            statuses.put(operation, new ConcurrentHashMap<>());
+            failures.put(operation, new LongAdder());
+            skipped.put(operation, new LongAdder());
+        }
+    }
+
+    void record(Operation operation, long latencyNanos, int status) {
+        histograms.get(operation).recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_LATENCY));
+        statuses.get(operation).computeIfAbsent(status, key -> new LongAdder()).increment();
+    }
+
+    void fail(Operation operation, long latencyNanos) {
+        histograms.get(operation).recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_LATENCY));
+        failures.get(operation).increment();
+    }
+
+    void skip(Operation operation) {
+        skipped.get(operation).increment();
+    }
+
+    void drained(Duration drain, int abandoned) {
+        this.drain = drain;
+        this.abandoned = abandoned;
+    }
+
+    void write(Path file, Duration elapsed, String settings) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file), true, StandardCharsets.UTF_8)) {
+            double seconds = elapsed.toMillis() / 1000.0;
+            out.println("# " + settings);
+            out.printf("# measured %.1f s, drained %.1f s, %d abandoned at the drain deadline%n%n",
+                    seconds, drain.toMillis() / 1000.0, abandoned);
+            out.printf("%-10s %9s %9s %9s %9s %9s %9s %9s %8s %8s  %s%n",
+                    "operation", "count", "req/s", "p50 ms", "p90 ms", "p99 ms", "p999 ms", "max ms", "failed", "skipped", "statuses");
+
+            Histogram total = new Histogram(HIGHEST_LATENCY, 3);
+            for (Operation operation : Operation.values()) {
+                Histogram histogram = histograms.get(operation);
+                total.add(histogram);
+                printRow(out, operation.key(), histogram, seconds, failures.get(operation).sum(),
+                        skipped.get(operation).sum(), new TreeMap<>(statuses.get(operation)).toString());
+            }
+            printRow(out, "all", total, seconds,
+                    failures.values().stream().mapToLong(LongAdder::sum).sum(),
+                    skipped.values().stream().mapToLong(LongAdder::sum).sum(), "");
+
+            for (Operation operation : Operation.values()) {
+                Histogram histogram = histograms.get(operation);
+                if (histogram.getTotalCount() > 0) {
+                    out.printf("%n## %s (ms)%n", operation.key());
+                    histogram.outputPercentileDistribution(out, 5, 1000.0);
+                }
+            }
+        }
+    }
+
+    private void printRow(PrintStream out, String name, Histogram histogram, double seconds,
+                          long failed, long skipped, String statuses) {
+        out.printf("%-10s %9d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f %8d %8d  %s%n",
+                name,
+                histogram.getTotalCount(),
+                histogram.getTotalCount() / seconds,
+                histogram.getValueAtPercentile(50) / 1000.0,
+                histogram.getValueAtPercentile(90) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getValueAtPercentile(99.9) / 1000.0,
+                histogram.getMaxValue() / 1000.0,
+                failed,
+                skipped,
+                statuses);
+    }
+}
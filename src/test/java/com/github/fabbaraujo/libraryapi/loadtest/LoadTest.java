@@ -0,0 +1,291 @@
+package com.github.fabbaraujo.libraryapi.loadtest;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.fabbaraujo.libraryapi.LibraryApiApplication;
+import com.github.fabbaraujo.libraryapi.api.request.BookRequest;
+import com.github.fabbaraujo.libraryapi.api.request.LoanRequest;
+import com.github.fabbaraujo.libraryapi.api.request.ReturnedLoanRequest;
+import com.github.fabbaraujo.libraryapi.api.response.BookImportResult;
+import com.github.fabbaraujo.libraryapi.model.entity.Loan;
+import com.github.fabbaraujo.libraryapi.model.repository.BookRepository;
+import com.github.fabbaraujo.libraryapi.model.repository.LoanRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.IntStream;
+
+/**
+ * Open-loop load generator: starts the application on an in-memory H2 database, seeds it through the API and
+ * fires a weighted mix of requests at a fixed rate, writing latency percentiles per operation to a report file.
+ * <p>
+ * Settings are read from system properties ({@code loadtest.rate}, {@code loadtest.duration},
+ * {@code loadtest.warmup}, {@code loadtest.mix}, {@code loadtest.books}, {@code loadtest.loans},
+ * {@code loadtest.timeout}, {@code loadtest.report}); any {@code spring.*} or {@code application.*} system property reaches the application.
+ * Under the {@code loadtest} Maven profile those are passed to the forked JVM through {@code loadtest.jvmArgs}, e.g.
+ * {@code -Dloadtest.jvmArgs="-Dapplication.books.import.batch-size=1000"}.
+ */
+@Slf4j
+public class LoadTest {
+
+    private static final int CUSTOMERS = 1_000;
+    private static final int SEED_CHUNK = 1_000;
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient client;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final URI baseUri;
+    private final Duration timeout;
+    private final Map<Operation, Integer> weights;
+    private final int totalWeight;
+    private final List<Long> bookIds = new ArrayList<>();
+    private final List<String> isbns = new ArrayList<>();
+    private final Queue<Long> openLoans = new ConcurrentLinkedQueue<>();
+    private final Map<CompletableFuture<Integer>, Pending> inFlight = new ConcurrentHashMap<>();
+
+    LoadTest(HttpClient client, URI baseUri, Duration timeout, Map<Operation, Integer> weights) {
+        this.client = client;
+        this.baseUri = baseUri;
+        this.timeout = timeout;
+        this.weights = weights;
+        this.totalWeight = weights.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    public static void main(String[] args) throws Exception {
+        int rate = Integer.getInteger("loadtest.rate", 200);
+        int duration = Integer.getInteger("loadtest.duration", 60);
+        int warmup = Integer.getInteger("loadtest.warmup", 10);
+        int books = Integer.getInteger("loadtest.books", 10_000);
+        int loans = Integer.getInteger("loadtest.loans", 20_000);
+        int timeout = Integer.getInteger("loadtest.timeout", 10);
+        String mix = System.getProperty("loadtest.mix", "search=30,lookup=30,checkout=10,return=10,loans=20");
+        Path reportFile = Path.of(System.getProperty("loadtest.report", "target/loadtest-report.txt"));
+
+        ExecutorService clientExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try (ConfigurableApplicationContext context = start()) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            HttpClient client = HttpClient.newBuilder().executor(clientExecutor).build();
+            LoadTest loadTest = new LoadTest(client, URI.create("http://localhost:" + port),
+                    Duration.ofSeconds(timeout), Operation.parseMix(mix));
+
+            loadTest.seedBooks(books);
+            loadTest.seedLoanHistory(context.getBean(BookRepository.class), context.getBean(LoanRepository.class), loans);
+            log.info("seeded {} books and {} returned loans, warming up for {} s", books, loans, warmup);
+
+            loadTest.drive(rate, warmup, new LatencyReport());
+            LatencyReport report = new LatencyReport();
+            Duration elapsed = loadTest.drive(rate, duration, report);
+
+            report.write(reportFile, elapsed, String.format("rate=%d req/s duration=%d s warmup=%d s timeout=%d s books=%d loans=%d mix=%s",
+                    rate, duration, warmup, timeout, books, loans, mix));
+            log.info("load test report written to {}", reportFile.toAbsolutePath());
+        } finally {
+            clientExecutor.shutdownNow();
+        }
+    }
+
+    private static ConfigurableApplicationContext start() {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        return new SpringApplicationBuilder(LibraryApiApplication.class)
+                .properties("server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "spring.jpa.show-sql=false",
+                        "logging.level.root=WARN",
+                        "logging.level.com.github.fabbaraujo.libraryapi.loadtest=INFO")
+                .run();
+    }
+
+    void seedBooks(int count) throws IOException, InterruptedException {
+        for (int start = 0; start < count; start += SEED_CHUNK) {
+            List<BookRequest> chunk = IntStream.range(start, Math.min(start + SEED_CHUNK, count))
+                    .mapToObj(i -> BookRequest.builder()
+                            .title("As aventuras de " + i)
+                            .author("Autor " + (i % 500))
+                            .isbn(String.format("978%010d", i))
+                            .build())
+                    .toList();
+            HttpResponse<String> response = client.send(json("POST", "/api/books/batch", chunk),
+                    HttpResponse.BodyHandlers.ofString());
+            List<BookImportResult> results = objectMapper.readValue(response.body(), new TypeReference<>() {
+            });
+            results.stream()
+                    .filter(result -> result.getStatus() == BookImportResult.Status.CREATED)
+                    .forEach(result -> {
+                        bookIds.add(result.getId());
+                        isbns.add(result.getIsbn());
+                    });
+        }
+    }
+
+    void seedLoanHistory(BookRepository bookRepository, LoanRepository loanRepository, int count) {
+        LocalDate today = LocalDate.now();
+        for (int start = 0; start < count; start += SEED_CHUNK) {
+            List<Loan> chunk = IntStream.range(start, Math.min(start + SEED_CHUNK, count))
+                    .mapToObj(i -> Loan.builder()
+                            .book(bookRepository.getById(bookIds.get(i % bookIds.size())))
+                            .customer(customer(i))
+                            .customerEmail("cliente" + (i % CUSTOMERS) + "@email.com")
+                            .loanDate(today.minusDays(i % 60))
+                            .returned(true)
+                            .build())
+                    .toList();
+            loanRepository.saveAll(chunk);
+        }
+    }
+
+    /**
+     * Issues {@code rate * seconds} requests on a fixed schedule regardless of how fast responses come back, then
+     * waits for the outstanding ones. Requests still pending after {@link #DRAIN_TIMEOUT} are counted as failures
+     * with the latency reached so far. Returns the time spent issuing requests, excluding the drain.
+     */
+    Duration drive(int rate, int seconds, LatencyReport report) throws InterruptedException {
+        long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        long total = (long) rate * seconds;
+        long start = System.nanoTime();
+        for (long i = 0; i < total; i++) {
+            long intendedStart = start + i * interval;
+            long delay;
+            while ((delay = intendedStart - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            Operation operation = nextOperation();
+            CompletableFuture<Integer> call = call(operation);
+            if (call == null) {
+                report.skip(operation);
+                continue;
+            }
+            inFlight.put(call, new Pending(operation, intendedStart));
+            call.whenComplete((status, error) -> {
+                if (inFlight.remove(call) == null) {
+                    return;
+                }
+                long latency = System.nanoTime() - intendedStart;
+                if (error != null) {
+                    report.fail(operation, latency);
+                } else {
+                    report.record(operation, latency, status);
+                }
+            });
+        }
+        long issued = System.nanoTime();
+
+        long deadline = issued + DRAIN_TIMEOUT.toNanos();
+        while (!inFlight.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        int abandoned = 0;
+        for (CompletableFuture<Integer> call : List.copyOf(inFlight.keySet())) {
+            Pending pending = inFlight.remove(call);
+            if (pending != null) {
+                report.fail(pending.operation(), System.nanoTime() - pending.intendedStart());
+                call.cancel(true);
+                abandoned++;
+            }
+        }
+        Duration drain = Duration.ofNanos(System.nanoTime() - issued);
+        report.drained(drain, abandoned);
+        log.info("issued {} requests in {} ms, drained in {} ms, {} abandoned",
+                total, TimeUnit.NANOSECONDS.toMillis(issued - start), drain.toMillis(), abandoned);
+        return Duration.ofNanos(issued - start);
+    }
+
+    private Operation nextOperation() {
+        int pick = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Map.Entry<Operation, Integer> weight : weights.entrySet()) {
+            pick -= weight.getValue();
+            if (pick < 0) {
+                return weight.getKey();
+            }
+        }
+        throw new IllegalStateException("Empty operation mix.");
+    }
+
+    private CompletableFuture<Integer> call(Operation operation) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return switch (operation) {
+            case SEARCH -> send(get("/api/books?author=" + encode("Autor " + random.nextInt(500)) + "&page=0&size=20"));
+            case LOOKUP -> send(get("/api/books/" + bookIds.get(random.nextInt(bookIds.size()))));
+            case CHECKOUT -> checkout(isbns.get(random.nextInt(isbns.size())), customer(random.nextInt(CUSTOMERS)));
+            case RETURN -> {
+                Long loanId = openLoans.poll();
+                yield loanId == null ? null : send(json("PATCH", "/api/loans/" + loanId, new ReturnedLoanRequest(true)));
+            }
+            case LOANS -> send(get("/api/loans?customer=" + encode(customer(random.nextInt(CUSTOMERS))) + "&page=0&size=20"));
+        };
+    }
+
+    private CompletableFuture<Integer> checkout(String isbn, String customer) {
+        LoanRequest body = LoanRequest.builder()
+                .isbn(isbn)
+                .customer(customer)
+                .customerEmail(customer.replace(" ", "").toLowerCase() + "@email.com")
+                .build();
+        return client.sendAsync(json("POST", "/api/loans", body), HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> {
+                    if (response.statusCode() == 201) {
+                        openLoans.add(Long.valueOf(response.body()));
+                    }
+                    return response.statusCode();
+                });
+    }
+
+    private CompletableFuture<Integer> send(HttpRequest request) {
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).thenApply(HttpResponse::statusCode);
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(baseUri.resolve(path))
+                .timeout(timeout)
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+    }
+
+    private HttpRequest json(String method, String path, Object body) {
+        try {
+            return HttpRequest.newBuilder(baseUri.resolve(path))
+                    .timeout(timeout)
+                    .header("Content-Type", "application/json")
+                    .header("Accept", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private static String customer(int i) {
+        return "Cliente " + (i % CUSTOMERS);
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private record Pending(Operation operation, long intendedStart) {
+    }
+}
@@ -0,0 +1,39 @@
+package com.github.fabbaraujo.libraryapi.loadtest;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+enum Operation {
+    SEARCH("search"),
+    LOOKUP("lookup"),
+    CHECKOUT("checkout"),
+    RETURN("return"),
+    LOANS("loans");
+
+    private final String key;
+
+    Operation(String key) {
+        this.key = key;
+    }
+
+    String key() {
+        return key;
+    }
+
+    /**
+     * Parses a mix such as {@code search=30,lookup=30,checkout=10,return=10,loans=20} into weights.
+     */
+    static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            Operation operation = Arrays.stream(values())
+                    .filter(candidate -> candidate.key.equals(parts[0].trim()))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown operation in mix: " + parts[0]));
+            weights.put(operation, Integer.parseInt(parts[1].trim()));
+        }
+        return weights;
+    }
+}
@@ -1,5 +1,6 @@
 package com.github.fabbaraujo.libraryapi.model.repository;
 
+import com.github.fabbaraujo.libraryapi.api.response.BookResponse;
 import com.github.fabbaraujo.libraryapi.model.entity.Book;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -7,12 +8,22 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.catchThrowable;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
@@ -82,6 +93,205 @@ class BookRepositoryTest {
         assertThat(deletedBook).isNull();
     }
 
+    @Test
+    @DisplayName("Deve listar os pares id e isbn dos livros cadastrados.")
+    void findAllIsbnEntriesTest() {
+        Book book = createValidBook();
+        entityManager.persist(book);
+
+        List<BookRepository.IsbnEntry> entries = repository.findAllIsbnEntries();
+
+        assertThat(entries.size()).isEqualTo(1);
+        assertThat(entries.get(0).getId()).isEqualTo(book.getId());
+        assertThat(entries.get(0).getIsbn()).isEqualTo("123");
+    }
+
+    @Test
+    @DisplayName("Deve inserir livros em lote.")
+    void insertAllTest() {
+        Book first = createValidBook();
+        Book second = Book.builder().isbn("321").author("Ciclano").title("Outras aventuras").build();
+
+        List<Book> savedBooks = repository.insertAll(List.of(first, second));
+
+        assertThat(savedBooks.get(0).getId()).isNotNull();
+        assertThat(savedBooks.get(1).getId()).isNotNull();
+        assertThat(repository.count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Deve retornar apenas os isbns já cadastrados.")
+    void findExistingIsbnsTest() {
+        entityManager.persist(createValidBook());
+
+        Set<String> existingIsbns = repository.findExistingIsbns(List.of("123", "321"));
+
+        assertThat(existingIsbns).isEqualTo(Set.of("123"));
+    }
+
+    @Test
+    @DisplayName("Deve paginar livros por cursor ordenando por título.")
+    void findByKeysetTest() {
+        entityManager.persist(Book.builder().isbn("1").author("Fulano").title("B").build());
+        entityManager.persist(Book.builder().isbn("2").author("Fulano").title("A").build());
+        entityManager.persist(Book.builder().isbn("3").author("Fulano").title("B").build());
+        entityManager.persist(Book.builder().isbn("4").author("Ciclano").title("C").build());
+        Book filter = Book.builder().author("fulano").build();
+
+        KeysetPage<Book> firstPage = repository.findByKeyset(filter, Keyset.first(Sort.by("title")), 2);
+        KeysetPage<Book> secondPage = repository.findByKeyset(filter, firstPage.getNext(), 2);
+
+        assertThat(firstPage.getContent().stream().map(Book::getIsbn).toList()).isEqualTo(List.of("2", "1"));
+        assertThat(firstPage.hasNext()).isTrue();
+        assertThat(secondPage.getContent().stream().map(Book::getIsbn).toList()).isEqualTo(List.of("3"));
+        assertThat(secondPage.hasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve paginar por cursor livros sem título nas duas direções.")
+    void findByKeysetWithNullTitlesTest() {
+        entityManager.persist(Book.builder().isbn("1").author("Fulano").title("A").build());
+        entityManager.persist(Book.builder().isbn("2").author("Fulano").build());
+        entityManager.persist(Book.builder().isbn("3").author("Fulano").build());
+        Book filter = Book.builder().author("fulano").build();
+
+        assertThat(isbnsByKeyset(filter, Sort.by("title"))).isEqualTo(List.of("2", "3", "1"));
+        assertThat(isbnsByKeyset(filter, Sort.by(Sort.Direction.DESC, "title"))).isEqualTo(List.of("1", "3", "2"));
+    }
+
+    @Test
+    @DisplayName("Deve gravar livros inseridos sem disponibilidade e versão como disponíveis na versão zero.")
+    void availabilityAndVersionDefaultsTest() {
+        entityManager.getEntityManager()
+                .createNativeQuery("insert into book (id, isbn) values (999, '999')")
+                .executeUpdate();
+
+        Book book = repository.findById(999L).orElseThrow();
+
+        assertThat(book.getAvailable()).isTrue();
+        assertThat(book.getVersion()).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve percorrer todos os livros como respostas.")
+    void streamAllResponsesTest() {
+        Book book = createValidBook();
+        entityManager.persist(book);
+
+        List<BookResponse> responses;
+        try (Stream<BookResponse> stream = repository.streamAllResponses()) {
+            responses = stream.toList();
+        }
+
+        assertThat(responses).isEqualTo(List.of(new BookResponse(book.getId(), "As aventuras", "Fulano", "123")));
+    }
+
+    @Test
+    @DisplayName("Deve filtrar livros projetando diretamente as respostas.")
+    void findResponsesTest() {
+        entityManager.persist(Book.builder().isbn("1").author("Fulano").title("B").build());
+        entityManager.persist(Book.builder().isbn("2").author("Fulano").title("A").build());
+        entityManager.persist(Book.builder().isbn("3").author("Fulano").title("C").build());
+        entityManager.persist(Book.builder().isbn("4").author("Ciclano").title("D").build());
+        Book filter = Book.builder().author("FULANO").build();
+
+        Slice<BookResponse> result = repository.findResponses(filter, PageRequest.of(0, 2, Sort.by("title")));
+
+        assertThat(result.getContent().stream().map(BookResponse::getTitle).toList()).isEqualTo(List.of("A", "B"));
+        assertThat(result.hasNext()).isTrue();
+        assertThat(repository.countResponses(filter)).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Deve buscar as respostas dos livros pelos ids.")
+    void findResponsesByIdInTest() {
+        Book book = createValidBook();
+        entityManager.persist(book);
+
+        List<BookResponse> result = repository.findResponsesByIdIn(List.of(book.getId()));
+
+        assertThat(result).isEqualTo(List.of(new BookResponse(book.getId(), "As aventuras", "Fulano", "123")));
+    }
+
+    @Test
+    @DisplayName("Deve marcar o livro como emprestado apenas quando estiver disponível.")
+    void checkoutTest() {
+        Book book = createValidBook();
+        entityManager.persist(book);
+        entityManager.flush();
+
+        int first = repository.checkout(book.getId());
+        int second = repository.checkout(book.getId());
+        entityManager.clear();
+
+        assertThat(first).isEqualTo(1);
+        assertThat(second).isZero();
+        assertThat(repository.findById(book.getId()).get().getAvailable()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve marcar o livro como disponível ao devolver.")
+    void releaseTest() {
+        Book book = createValidBook();
+        entityManager.persist(book);
+        entityManager.flush();
+        repository.checkout(book.getId());
+
+        repository.release(book.getId());
+        entityManager.clear();
+
+        Book released = repository.findById(book.getId()).get();
+        assertThat(released.getAvailable()).isTrue();
+        assertThat(released.getVersion()).isEqualTo(2L);
+    }
+
+    @Test
+    @DisplayName("Deve filtrar livros pela disponibilidade.")
+    void findResponsesByAvailabilityTest() {
+        Book available = createValidBook();
+        Book loaned = Book.builder().isbn("456").author("Fulano").title("Outro").build();
+        entityManager.persist(available);
+        entityManager.persist(loaned);
+        entityManager.flush();
+        repository.checkout(loaned.getId());
+
+        Slice<BookResponse> result = repository.findResponses(Book.builder().available(true).build(), PageRequest.of(0, 10));
+
+        assertThat(result.getContent().stream().map(BookResponse::getIsbn).toList()).isEqualTo(List.of("123"));
+    }
+
+    @Test
+    @DisplayName("Deve impedir dois livros com o mesmo isbn na base.")
+    void uniqueIsbnTest() {
+        repository.saveAndFlush(createValidBook());
+
+        Throwable exception = catchThrowable(() -> repository.saveAndFlush(createValidBook()));
+
+        assertThat(exception).isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    @DisplayName("Deve incrementar a versão da coleção de livros.")
+    void bumpCollectionVersionTest() {
+        long before = repository.findCollectionVersion();
+
+        int updated = repository.bumpCollectionVersion();
+
+        assertThat(updated).isEqualTo(1);
+        assertThat(repository.findCollectionVersion()).isEqualTo(before + 1);
+    }
+
+    private List<String> isbnsByKeyset(Book filter, Sort sort) {
+        List<String> isbns = new ArrayList<>();
+        Keyset keyset = Keyset.first(sort);
+        while (keyset != null) {
+            KeysetPage<Book> page = repository.findByKeyset(filter, keyset, 1);
+            page.getContent().forEach(book -> isbns.add(book.getIsbn()));
+            keyset = page.getNext();
+        }
+        return isbns;
+    }
+
     private Book createValidBook() {
         return Book.builder()
                 .isbn("123")
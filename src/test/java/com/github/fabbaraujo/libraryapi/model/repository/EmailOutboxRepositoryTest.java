@@ -0,0 +1,84 @@
+package com.github.fabbaraujo.libraryapi.model.repository;
+
+import com.github.fabbaraujo.libraryapi.model.entity.EmailOutbox;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+class EmailOutboxRepositoryTest {
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    EmailOutboxRepository repository;
+
+    @Test
+    @DisplayName("Deve buscar apenas os emails pendentes com tentativa vencida.")
+    void findDueTest() {
+        EmailOutbox due = createAndPersistEmail(EmailOutbox.Status.PENDING, LocalDateTime.now().minusMinutes(1));
+        createAndPersistEmail(EmailOutbox.Status.PENDING, LocalDateTime.now().plusMinutes(10));
+        createAndPersistEmail(EmailOutbox.Status.SENT, LocalDateTime.now().minusMinutes(1));
+
+        List<EmailOutbox> result = repository.findDue(LocalDateTime.now(), PageRequest.of(0, 10));
+
+        assertThat(result).containsExactly(due);
+    }
+
+    @Test
+    @DisplayName("Deve reservar o email pendente apenas uma vez.")
+    void claimTest() {
+        EmailOutbox email = createAndPersistEmail(EmailOutbox.Status.PENDING, LocalDateTime.now());
+
+        int first = repository.claim(email.getId(), LocalDateTime.now());
+        int second = repository.claim(email.getId(), LocalDateTime.now());
+
+        assertThat(first).isEqualTo(1);
+        assertThat(second).isZero();
+        assertThat(repository.countByStatus(EmailOutbox.Status.SENDING)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve liberar apenas as reservas com prazo expirado.")
+    void releaseClaimedBeforeTest() {
+        LocalDateTime now = LocalDateTime.now();
+        EmailOutbox expired = createAndPersistEmail(EmailOutbox.Status.PENDING, now);
+        EmailOutbox inFlight = createAndPersistEmail(EmailOutbox.Status.PENDING, now);
+        repository.claim(expired.getId(), now.minusMinutes(20));
+        repository.claim(inFlight.getId(), now.minusMinutes(1));
+
+        int released = repository.releaseClaimedBefore(now.minusMinutes(10));
+
+        assertThat(released).isEqualTo(1);
+        assertThat(repository.findById(expired.getId())).get().extracting(EmailOutbox::getStatus).isEqualTo(EmailOutbox.Status.PENDING);
+        assertThat(repository.findById(inFlight.getId())).get().extracting(EmailOutbox::getStatus).isEqualTo(EmailOutbox.Status.SENDING);
+    }
+
+    private EmailOutbox createAndPersistEmail(EmailOutbox.Status status, LocalDateTime nextAttemptAt) {
+        EmailOutbox email = EmailOutbox.builder()
+                .sender("mail@mail-api.com")
+                .subject("Livro com empréstimo atrasado.")
+                .text("Atrasado")
+                .recipients("fulano@email.com")
+                .status(status)
+                .attempts(0)
+                .createdAt(LocalDateTime.now())
+                .nextAttemptAt(nextAttemptAt)
+                .build();
+        return entityManager.persist(email);
+    }
+}
@@ -0,0 +1,80 @@
+package com.github.fabbaraujo.libraryapi.model.repository;
+
+import com.github.fabbaraujo.libraryapi.api.response.LoanResponse;
+import com.github.fabbaraujo.libraryapi.model.entity.Book;
+import com.github.fabbaraujo.libraryapi.model.entity.Loan;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+class LoanHistoryRepositoryTest {
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    LoanHistoryRepository repository;
+
+    Book book;
+    Loan archived;
+    Loan open;
+
+    @BeforeEach
+    void setup() {
+        book = entityManager.persist(Book.builder().isbn("123").author("Fulano").title("As aventuras").build());
+        archived = entityManager.persist(Loan.builder()
+                .book(book)
+                .customer("Fulano")
+                .loanDate(LocalDate.now().minusYears(2))
+                .returned(true)
+                .build());
+        open = entityManager.persist(Loan.builder()
+                .book(book)
+                .customer("Ciclano")
+                .loanDate(LocalDate.now())
+                .build());
+        entityManager.flush();
+        loanRepository.copyToArchive(List.of(archived.getId()));
+        loanRepository.deleteArchived(List.of(archived.getId()));
+        entityManager.clear();
+    }
+
+    @Test
+    @DisplayName("Deve buscar os empréstimos do livro no acervo ativo e no arquivo.")
+    void findResponsesByBookTest() {
+        Slice<LoanResponse> result = repository.findResponsesByBook(book, PageRequest.of(0, 10, Sort.by("id")));
+
+        assertThat(result.getContent()).extracting(LoanResponse::getId).containsExactly(archived.getId(), open.getId());
+        assertThat(repository.countByBook(book)).isEqualTo(2);
+        assertThat(loanRepository.countByBook(book)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve buscar empréstimos arquivados por isbn ou customer.")
+    void findResponsesByBookIsbnOrCustomerTest() {
+        Slice<LoanResponse> result = repository.findResponsesByBookIsbnOrCustomer("none", "Fulano", PageRequest.of(0, 10));
+
+        assertThat(result.getContent()).extracting(LoanResponse::getId).containsExactly(archived.getId());
+        assertThat(repository.countByBookIsbnOrCustomer("123", "none")).isEqualTo(2);
+    }
+}
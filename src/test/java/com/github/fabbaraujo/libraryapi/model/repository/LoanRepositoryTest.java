@@ -1,26 +1,34 @@
 package com.github.fabbaraujo.libraryapi.model.repository;
 
+import com.github.fabbaraujo.libraryapi.api.response.LoanResponse;
+import com.github.fabbaraujo.libraryapi.exception.BusinessException;
 import com.github.fabbaraujo.libraryapi.model.entity.Book;
 import com.github.fabbaraujo.libraryapi.model.entity.Loan;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.catchThrowable;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 class LoanRepositoryTest {
 
     @Autowired
@@ -30,48 +38,234 @@ class LoanRepositoryTest {
     LoanRepository repository;
 
     @Test
-    @DisplayName("Deve verificar se existe empréstimo não devolvido para o livro.")
-    void existsByBookAndNotReturnedTest() {
+    @DisplayName("Deve buscar empréstimos usando apenas os filtros informados.")
+    void findResponsesWithPartialFilterTest() {
         Loan loan = createAndPersistLoan(LocalDate.now());
-        Book book = loan.getBook();
+        createAndPersistLoans(2);
+        entityManager.flush();
 
-        boolean exists = repository.existsByBookAndNotReturned(book);
+        Slice<LoanResponse> byCustomer = repository.findResponsesByBookIsbnOrCustomer(null, "Fulano", PageRequest.of(0, 10));
+        Slice<LoanResponse> byIsbn = repository.findResponsesByBookIsbnOrCustomer("123", null, PageRequest.of(0, 10));
+        Slice<LoanResponse> unknownIsbn = repository.findResponsesByBookIsbnOrCustomer("none", null, PageRequest.of(0, 10));
 
-        assertThat(exists).isTrue();
+        assertThat(byCustomer.getNumberOfElements()).isEqualTo(3);
+        assertThat(repository.countByBookIsbnOrCustomer(null, "Fulano")).isEqualTo(3);
+        assertThat(byIsbn.getContent().get(0).getId()).isEqualTo(loan.getId());
+        assertThat(byIsbn.getNumberOfElements()).isEqualTo(1);
+        assertThat(unknownIsbn.hasContent()).isFalse();
     }
 
     @Test
-    @DisplayName("Deve buscar empréstimo pelo isbn do livro ou customer")
-    void findByBookIsbnOrCustomerTest() {
-        createAndPersistLoan(LocalDate.now());
+    @DisplayName("Não deve retornar empréstimos quando nenhum filtro for informado.")
+    void findResponsesWithoutFilterTest() {
+        createAndPersistLoans(2);
+        entityManager.flush();
 
-        Page<Loan> result = repository.findByBookIsbnOrCustomer("123", "Fulano", PageRequest.of(0, 10));
+        Slice<LoanResponse> result = repository.findResponsesByBookIsbnOrCustomer(null, null, PageRequest.of(0, 10));
+        KeysetPage<Loan> page = repository.findByKeyset(null, null, Keyset.first(Sort.by("id")), 10);
 
-        assertThat(result.getContent().size()).isEqualTo(1);
-        assertThat(result.getPageable().getPageSize()).isEqualTo(10);
-        assertThat(result.getPageable().getPageNumber()).isZero();
-        assertThat(result.getTotalElements()).isEqualTo(1);
+        assertThat(result.hasContent()).isFalse();
+        assertThat(repository.countByBookIsbnOrCustomer(null, null)).isZero();
+        assertThat(page.getContent().isEmpty()).isTrue();
     }
 
     @Test
-    @DisplayName("Deve retornar vazio quando não houver empréstimos atrasados.")
-    void notFindByLoanDateLessThenAndNotReturnedTest() {
+    @DisplayName("Deve paginar empréstimos por cursor.")
+    void findByKeysetTest() {
+        Loan first = createAndPersistLoan(LocalDate.now());
+        Loan second = Loan.builder()
+                .book(first.getBook())
+                .customer("Fulano")
+                .loanDate(LocalDate.now())
+                .build();
+        entityManager.persist(second);
+
+        KeysetPage<Loan> firstPage = repository.findByKeyset(null, "Fulano", Keyset.first(Sort.by(Sort.Direction.DESC, "id")), 1);
+        KeysetPage<Loan> secondPage = repository.findByKeyset(null, "Fulano", firstPage.getNext(), 1);
+
+        assertThat(firstPage.getContent()).isEqualTo(List.of(second));
+        assertThat(firstPage.hasNext()).isTrue();
+        assertThat(secondPage.getContent()).isEqualTo(List.of(first));
+        assertThat(secondPage.hasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve paginar empréstimos por cursor carregando os livros na mesma consulta.")
+    void findByKeysetStatementCountTest() {
+        createAndPersistLoans(3);
+        Statistics statistics = clearAndGetStatistics();
+
+        KeysetPage<Loan> page = repository.findByKeyset(null, "Fulano", Keyset.first(Sort.by("id")), 10);
+        List<String> titles = page.getContent().stream().map(loan -> loan.getBook().getTitle()).toList();
+
+        assertThat(titles).isEqualTo(List.of("Livro 0", "Livro 1", "Livro 2"));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro de negócio ao receber um cursor com data inválida.")
+    void findByKeysetWithInvalidDateTest() {
+        Keyset keyset = Keyset.first(Sort.by("loanDate")).next("não é data", 1L);
+
+        Throwable exception = catchThrowable(() -> repository.findByKeyset(null, null, keyset, 1));
+
+        assertThat(exception).isInstanceOf(BusinessException.class).hasMessage("Cursor inválido.");
+    }
+
+    @Test
+    @DisplayName("Deve percorrer todos os empréstimos como respostas com o livro.")
+    void streamAllResponsesTest() {
+        Loan loan = createAndPersistLoan(LocalDate.now());
+        createAndPersistLoans(3);
+        Statistics statistics = clearAndGetStatistics();
+
+        List<LoanResponse> responses;
+        try (Stream<LoanResponse> stream = repository.streamAllResponses()) {
+            responses = stream.toList();
+        }
+
+        assertThat(responses.size()).isEqualTo(4);
+        assertThat(responses.get(0).getId()).isEqualTo(loan.getId());
+        assertThat(responses.get(0).getIsbn()).isEqualTo("123");
+        assertThat(responses.get(0).getBook().getId()).isEqualTo(loan.getBook().getId());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve buscar apenas os empréstimos em aberto para a fila de vencimentos.")
+    void findOpenDueEntriesTest() {
+        Loan open = createAndPersistLoan(LocalDate.now().minusDays(5));
+        Loan returned = Loan.builder()
+                .book(open.getBook())
+                .customer("Ciclano")
+                .loanDate(LocalDate.now())
+                .returned(true)
+                .build();
+        entityManager.persist(returned);
+
+        List<LoanRepository.DueEntry> dueEntries = repository.findOpenDueEntriesAfter(0L, PageRequest.of(0, 10));
+        List<LoanRepository.LateLoanEntry> lateLoans = repository.findOpenLateLoansByIdIn(List.of(open.getId(), returned.getId()));
+
+        assertThat(dueEntries.size()).isEqualTo(1);
+        assertThat(dueEntries.get(0).getId()).isEqualTo(open.getId());
+        assertThat(dueEntries.get(0).getLoanDate()).isEqualTo(open.getLoanDate());
+        assertThat(lateLoans.size()).isEqualTo(1);
+        assertThat(lateLoans.get(0).getId()).isEqualTo(open.getId());
+    }
+
+    @Test
+    @DisplayName("Deve buscar empréstimos por isbn ou customer projetando diretamente as respostas.")
+    void findResponsesByBookIsbnOrCustomerTest() {
         Loan loan = createAndPersistLoan(LocalDate.now());
+        createAndPersistLoans(3);
+        Statistics statistics = clearAndGetStatistics();
 
-        List<Loan> result = repository.findByLoanDateLessThenAndNotReturned(LocalDate.now().minusDays(4));
+        Slice<LoanResponse> result = repository.findResponsesByBookIsbnOrCustomer("123", "Ninguém", PageRequest.of(0, 10));
 
-        assertThat(result.isEmpty()).isTrue();
+        assertThat(result.getNumberOfElements()).isEqualTo(1);
+        assertThat(result.hasNext()).isFalse();
+        assertThat(result.getContent().get(0).getId()).isEqualTo(loan.getId());
+        assertThat(result.getContent().get(0).getBook().getTitle()).isEqualTo("As aventuras");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
     }
 
     @Test
-    @DisplayName("Deve obter empréstimos cuja data empréstimo for menor ou igual a três dias atrás e não retornados.")
-    void findByLoanDateLessThenAndNotReturnedTest() {
-        Loan loan = createAndPersistLoan(LocalDate.now().minusDays(5));
+    @DisplayName("Deve buscar empréstimos do livro projetando diretamente as respostas.")
+    void findResponsesByBookTest() {
+        Loan loan = createAndPersistLoan(LocalDate.now());
+        createAndPersistLoans(3);
+
+        Slice<LoanResponse> result = repository.findResponsesByBook(loan.getBook(), PageRequest.of(0, 10));
 
-        List<Loan> result = repository.findByLoanDateLessThenAndNotReturned(LocalDate.now().minusDays(4));
+        assertThat(result.getNumberOfElements()).isEqualTo(1);
+        assertThat(repository.countByBook(loan.getBook())).isEqualTo(1);
+        assertThat(result.getContent().get(0).getIsbn()).isEqualTo("123");
+    }
+
+    @Test
+    @DisplayName("Deve mudar a versão dos empréstimos de um livro quando um empréstimo for devolvido.")
+    void findCollectionVersionByBookTest() {
+        Loan loan = createAndPersistLoan(LocalDate.now());
+        entityManager.flush();
+        String before = repository.findCollectionVersionByBook(loan.getBook()).token();
+
+        loan.setReturned(true);
+        repository.saveAndFlush(loan);
+        String after = repository.findCollectionVersionByBook(loan.getBook()).token();
+
+        assertThat(before).isEqualTo("1-" + loan.getId() + "-0");
+        assertThat(after).isEqualTo("1-" + loan.getId() + "-1");
+    }
+
+    @Test
+    @DisplayName("Deve marcar como devolvidos apenas os empréstimos em aberto.")
+    void markReturnedTest() {
+        List<Loan> loans = createAndPersistLoans(3);
+        loans.get(2).setReturned(true);
+        entityManager.flush();
+
+        List<LoanRepository.ReturnEntry> open = repository.findOpenReturnEntriesByIsbnIn(List.of("isbn-0", "isbn-2"));
+        int updated = repository.markReturned(loans.stream().map(Loan::getId).toList());
+        entityManager.clear();
+
+        assertThat(open.size()).isEqualTo(1);
+        assertThat(open.get(0).getId()).isEqualTo(loans.get(0).getId());
+        assertThat(updated).isEqualTo(2);
+        assertThat(repository.findById(loans.get(1).getId()).get().getReturned()).isTrue();
+        assertThat(repository.findById(loans.get(1).getId()).get().getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("Deve mover para o arquivo apenas os empréstimos devolvidos antes da data.")
+    void archiveReturnedLoansTest() {
+        Loan old = createAndPersistLoan(LocalDate.now().minusYears(2));
+        old.setReturned(true);
+        List<Loan> recent = createAndPersistLoans(2);
+        recent.get(0).setReturned(true);
+        entityManager.flush();
+
+        List<Long> ids = repository.findArchivableIds(LocalDate.now().minusYears(1), PageRequest.of(0, 10));
+        int copied = repository.copyToArchive(ids);
+        int deleted = repository.deleteArchived(ids);
+        entityManager.clear();
+
+        assertThat(ids).isEqualTo(List.of(old.getId()));
+        assertThat(copied).isEqualTo(1);
+        assertThat(deleted).isEqualTo(1);
+        assertThat(repository.findById(old.getId())).isEmpty();
+        assertThat(repository.count()).isEqualTo(2);
+    }
+
+    private List<Loan> createAndPersistLoans(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> {
+                    Book book = Book.builder()
+                            .isbn("isbn-" + i)
+                            .author("Autor " + i)
+                            .title("Livro " + i)
+                            .build();
+                    entityManager.persist(book);
+                    Loan loan = Loan.builder()
+                            .book(book)
+                            .customer("Fulano")
+                            .loanDate(LocalDate.now())
+                            .build();
+                    return entityManager.persist(loan);
+                })
+                .toList();
+    }
 
-        assertThat(result.size()).isEqualTo(1);
-        assertThat(result.get(0)).isEqualTo(loan);
+    private Statistics clearAndGetStatistics() {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManager()
+                .getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+        return statistics;
     }
 
     private Loan createAndPersistLoan(LocalDate loanDate) {
@@ -0,0 +1,184 @@
+package com.github.fabbaraujo.libraryapi.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.fabbaraujo.libraryapi.model.entity.Book;
+import com.github.fabbaraujo.libraryapi.model.repository.BookRepository;
+import com.github.fabbaraujo.libraryapi.service.impl.BookServiceImpl;
+import com.github.fabbaraujo.libraryapi.service.index.BookIsbnIndex;
+import com.github.fabbaraujo.libraryapi.service.index.BookSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@ContextConfiguration(classes = BookServiceCacheTest.CacheConfig.class)
+class BookServiceCacheTest {
+
+    @Autowired
+    BookService service;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @MockBean
+    BookRepository repository;
+
+    @MockBean
+    BookIsbnIndex isbnIndex;
+
+    @MockBean
+    BookSearchIndex searchIndex;
+
+    @BeforeEach
+    public void setup() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        Mockito.when(isbnIndex.mightContain(any())).thenReturn(true);
+        Mockito.when(isbnIndex.findId(any())).thenReturn(Optional.empty());
+    }
+
+    @Test
+    @DisplayName("Deve buscar o livro por id no banco apenas uma vez.")
+    void cacheGetByIdTest() {
+        Mockito.when(repository.findById(1L)).thenReturn(Optional.of(createBook()));
+
+        Optional<Book> first = service.getById(1L);
+        Optional<Book> second = service.getById(1L);
+
+        assertThat(first).isPresent();
+        assertThat(second).contains(first.get());
+        verify(repository, times(1)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Não deve expor no cache alterações feitas no livro retornado.")
+    void cacheCopyTest() {
+        Mockito.when(repository.findById(1L)).thenReturn(Optional.of(createBook()));
+
+        Book first = service.getById(1L).get();
+        first.setTitle("Outro título");
+        Book second = service.getById(1L).get();
+        second.setAuthor("Outro autor");
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getTitle()).isEqualTo("As aventuras");
+        assertThat(service.getById(1L).get().getAuthor()).isEqualTo("Fulano");
+    }
+
+    @Test
+    @DisplayName("Deve buscar no banco o livro em cache quando a versão mudou, sem guardar a leitura.")
+    void reloadStaleBookTest() {
+        Book stale = createBook();
+        stale.setVersion(1L);
+        Book current = createBook();
+        current.setVersion(2L);
+        current.setTitle("Novo título");
+        Mockito.when(repository.findById(1L)).thenReturn(Optional.of(stale)).thenReturn(Optional.of(current));
+        service.getById(1L);
+
+        Mockito.when(repository.findVersionById(1L)).thenReturn(Optional.of(1L));
+        assertThat(service.getCurrentById(1L).get().getVersion()).isEqualTo(1L);
+
+        Mockito.when(repository.findVersionById(1L)).thenReturn(Optional.of(2L));
+        Book book = service.getCurrentById(1L).get();
+
+        assertThat(book.getVersion()).isEqualTo(2L);
+        assertThat(book.getTitle()).isEqualTo("Novo título");
+        assertThat(cacheManager.getCache(BookCache.BOOKS_CACHE).get(1L)).isNull();
+        verify(repository, times(2)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Não deve guardar em cache livros não encontrados.")
+    void notCacheMissingBookTest() {
+        Mockito.when(repository.findById(1L)).thenReturn(Optional.empty());
+
+        service.getById(1L);
+        service.getById(1L);
+
+        verify(repository, times(2)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Deve buscar o livro por isbn no banco apenas uma vez.")
+    void cacheGetBookByIsbnTest() {
+        Mockito.when(repository.findByIsbn("123")).thenReturn(Optional.of(createBook()));
+
+        service.getBookByIsbn("123");
+        Optional<Book> book = service.getBookByIsbn("123");
+
+        assertThat(book).isPresent();
+        verify(repository, times(1)).findByIsbn("123");
+    }
+
+    @Test
+    @DisplayName("Deve invalidar as entradas do livro por id e isbn ao atualizar.")
+    void evictOnUpdateTest() {
+        Book book = createBook();
+        Mockito.when(repository.findById(1L)).thenReturn(Optional.of(book));
+        Mockito.when(repository.findByIsbn("123")).thenReturn(Optional.of(book));
+        Mockito.when(repository.save(book)).thenReturn(book);
+        service.getById(1L);
+        service.getBookByIsbn("123");
+
+        service.update(book);
+        service.getById(1L);
+        service.getBookByIsbn("123");
+
+        verify(repository, times(2)).findById(1L);
+        verify(repository, times(2)).findByIsbn("123");
+    }
+
+    @Test
+    @DisplayName("Deve invalidar as entradas do livro por id e isbn ao deletar.")
+    void evictOnDeleteTest() {
+        Book book = createBook();
+        Mockito.when(repository.findById(1L)).thenReturn(Optional.of(book));
+        service.getById(1L);
+
+        service.delete(book);
+
+        assertThat(cacheManager.getCache(BookCache.BOOKS_CACHE).get(1L)).isNull();
+        assertThat(cacheManager.getCache(BookCache.BOOKS_BY_ISBN_CACHE).get("123")).isNull();
+    }
+
+    private Book createBook() {
+        return Book.builder().id(1L).isbn("123").author("Fulano").title("As aventuras").build();
+    }
+
+    @EnableCaching
+    static class CacheConfig {
+
+        @Bean
+        CacheManager cacheManager() {
+            CaffeineCacheManager cacheManager = new CaffeineCacheManager(BookCache.BOOKS_CACHE, BookCache.BOOKS_BY_ISBN_CACHE);
+            cacheManager.setCaffeine(Caffeine.newBuilder().maximumSize(100).recordStats());
+            return cacheManager;
+        }
+
+        @Bean
+        BookService bookService(BookRepository repository, BookIsbnIndex isbnIndex, BookSearchIndex searchIndex,
+                                CacheManager cacheManager) {
+            return new BookServiceImpl(repository, isbnIndex, searchIndex, new PageCountCache(new ConcurrentMapCacheManager()),
+                    new BookCache(cacheManager), 500);
+        }
+    }
+}
@@ -1,22 +1,32 @@
 package com.github.fabbaraujo.libraryapi.service;
 
+import com.github.fabbaraujo.libraryapi.api.response.BookImportResult;
 import com.github.fabbaraujo.libraryapi.exception.BusinessException;
 import com.github.fabbaraujo.libraryapi.model.entity.Book;
 import com.github.fabbaraujo.libraryapi.model.repository.BookRepository;
 import com.github.fabbaraujo.libraryapi.service.impl.BookServiceImpl;
+import com.github.fabbaraujo.libraryapi.api.response.BookResponse;
+import com.github.fabbaraujo.libraryapi.service.index.BookIsbnIndex;
+import com.github.fabbaraujo.libraryapi.service.index.BookSearchIndex;
 import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.*;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
@@ -29,12 +39,24 @@ class BookServiceTest {
 
     BookService service;
 
+    BookIsbnIndex isbnIndex;
+
+    BookSearchIndex searchIndex;
+
     @MockBean
     BookRepository repository;
 
     @BeforeEach
-    void setup() {
-        this.service = new BookServiceImpl(repository);
+    void setup() throws IOException {
+        this.isbnIndex = new BookIsbnIndex(repository, 1000, 0.01);
+        this.searchIndex = new BookSearchIndex(repository);
+        this.service = new BookServiceImpl(repository, isbnIndex, searchIndex, new PageCountCache(new ConcurrentMapCacheManager()),
+                new BookCache(new ConcurrentMapCacheManager()), 2);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        searchIndex.close();
     }
 
     @Test
@@ -56,6 +78,7 @@ class BookServiceTest {
         assertThat(savedBook.getIsbn()).isEqualTo("123");
         assertThat(savedBook.getTitle()).isEqualTo("As aventuras");
         assertThat(savedBook.getAuthor()).isEqualTo("Fulano");
+        Mockito.verify(repository).bumpCollectionVersion();
     }
 
     @Test
@@ -137,6 +160,7 @@ class BookServiceTest {
         assertThat(book.getIsbn()).isEqualTo(updatedBook.getIsbn());
         assertThat(book.getAuthor()).isEqualTo(updatedBook.getAuthor());
         assertThat(book.getTitle()).isEqualTo(updatedBook.getTitle());
+        Mockito.verify(repository).bumpCollectionVersion();
     }
 
     @Test
@@ -150,20 +174,79 @@ class BookServiceTest {
     }
 
     @Test
-    @DisplayName("Deve filtrar livros de acordo com as propriedades.")
-    void findBookTest() {
+    @DisplayName("Deve filtrar livros retornando as respostas projetadas.")
+    void findBookResponsesTest() {
+        Book book = createValidBook();
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        List<BookResponse> content = List.of(new BookResponse(1L, "As aventuras", "Fulano", "123"));
+        when(repository.findResponses(book, pageRequest)).thenReturn(new SliceImpl<>(content, pageRequest, false));
+
+        Page<BookResponse> result = service.findResponses(book, pageRequest);
+
+        assertThat(result).isEqualTo(new PageImpl<>(content, pageRequest, 1));
+    }
+
+    @Test
+    @DisplayName("Deve reutilizar a contagem do filtro normalizado entre as páginas.")
+    void findBookResponsesCachedCountTest() {
+        List<BookResponse> content = List.of(new BookResponse(1L, "As aventuras", "Fulano", "123"));
+        when(repository.findResponses(Mockito.any(Book.class), Mockito.any(Pageable.class)))
+                .thenAnswer(invocation -> new SliceImpl<>(content, invocation.getArgument(1), true));
+        when(repository.countResponses(Mockito.any(Book.class))).thenReturn(30L);
+
+        Page<BookResponse> first = service.findResponses(Book.builder().author("Fulano").build(), PageRequest.of(0, 1));
+        Page<BookResponse> second = service.findResponses(Book.builder().author("FULANO").build(), PageRequest.of(1, 1));
+
+        assertThat(first.getTotalElements()).isEqualTo(30);
+        assertThat(second.getTotalElements()).isEqualTo(30);
+        verify(repository, times(1)).countResponses(Mockito.any(Book.class));
+    }
+
+    @Test
+    @DisplayName("Deve filtrar livros sem contar o total quando solicitado um slice.")
+    void findBookResponseSliceTest() {
         Book book = createValidBook();
         PageRequest pageRequest = PageRequest.of(0, 10);
-        List<Book> lista = List.of(book);
-        Page<Book> page = new PageImpl<>(lista, pageRequest, 1);
-        when(repository.findAll(Mockito.any(Example.class), Mockito.any(Pageable.class))).thenReturn(page);
+        Slice<BookResponse> slice = new SliceImpl<>(List.of(new BookResponse(1L, "As aventuras", "Fulano", "123")), pageRequest, true);
+        when(repository.findResponses(book, pageRequest)).thenReturn(slice);
+
+        Slice<BookResponse> result = service.findResponseSlice(book, pageRequest);
 
-        Page<Book> result = service.find(book, pageRequest);
+        assertThat(result).isEqualTo(slice);
+        verify(repository, never()).countResponses(Mockito.any(Book.class));
+    }
 
+    @Test
+    @DisplayName("Deve filtrar respostas de livros pelo índice textual sem carregar entidades.")
+    void findBookResponsesWithSearchIndexTest() {
+        when(repository.streamAllResponses()).thenReturn(Stream.of(
+                new BookResponse(1L, "Aventuras na Amazônia", "Fulano", "1"),
+                new BookResponse(2L, "As aventuras de Tom", "Fulano", "2")
+        ));
+        when(repository.findResponsesByIdIn(List.of(2L))).thenReturn(List.of(new BookResponse(2L, "As aventuras de Tom", "Fulano", "2")));
+        searchIndex.load();
+
+        Page<BookResponse> result = service.findResponses(Book.builder().title("aventuras tom").build(), PageRequest.of(0, 10));
+
+        assertThat(result.getContent().get(0).getId()).isEqualTo(2L);
         assertThat(result.getTotalElements()).isEqualTo(1);
-        assertThat(result.getContent()).isEqualTo(lista);
-        assertThat(result.getPageable().getPageNumber()).isZero();
-        assertThat(result.getPageable().getPageSize()).isEqualTo(10);
+        verify(repository, never()).findAllById(Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Não deve usar o índice textual quando o título informado estiver em branco.")
+    void findBookResponsesWithBlankTitleTest() {
+        when(repository.streamAllResponses()).thenReturn(Stream.of(new BookResponse(1L, "As aventuras", "Fulano", "1")));
+        searchIndex.load();
+        Book filter = Book.builder().title(" ").build();
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        when(repository.findResponses(filter, pageRequest)).thenReturn(new SliceImpl<>(List.of(), pageRequest, false));
+
+        Slice<BookResponse> result = service.findResponseSlice(filter, pageRequest);
+
+        assertThat(result.hasContent()).isFalse();
+        verify(repository).findResponses(filter, pageRequest);
+        verify(repository, never()).findResponsesByIdIn(Mockito.any());
     }
 
     @Test
@@ -182,6 +265,102 @@ class BookServiceTest {
         verify(repository, times(1)).findByIsbn(isbn);
     }
 
+    @Test
+    @DisplayName("Deve salvar um livro sem consultar o isbn na base quando o índice garante que não existe.")
+    void saveBookWithLoadedIndexTest() {
+        Book book = createValidBook();
+        when(repository.findAllIsbnEntries()).thenReturn(List.of());
+        when(repository.save(book)).thenReturn(Book.builder().id(1L).isbn("123").build());
+        isbnIndex.load();
+
+        service.save(book);
+
+        verify(repository, never()).existsByIsbn(Mockito.anyString());
+        assertThat(isbnIndex.findId("123")).contains(1L);
+    }
+
+    @Test
+    @DisplayName("Deve retornar vazio ao buscar um isbn não cadastrado sem consultar a base.")
+    void getBookByUnknownIsbnWithLoadedIndexTest() {
+        when(repository.findAllIsbnEntries()).thenReturn(List.of());
+        isbnIndex.load();
+
+        Optional<Book> bookByIsbn = service.getBookByIsbn("123");
+
+        assertThat(bookByIsbn).isEmpty();
+        verify(repository, never()).findByIsbn(Mockito.anyString());
+    }
+
+    @Test
+    @DisplayName("Deve obter um livro pelo isbn através do id indexado.")
+    void getBookByIsbnWithLoadedIndexTest() {
+        Book book = createValidBook();
+        book.setId(1L);
+        when(repository.findAllIsbnEntries()).thenReturn(List.of());
+        when(repository.findById(1L)).thenReturn(Optional.of(book));
+        isbnIndex.load();
+        isbnIndex.register(book);
+
+        Optional<Book> bookByIsbn = service.getBookByIsbn("123");
+
+        assertThat(bookByIsbn).contains(book);
+        verify(repository, never()).findByIsbn(Mockito.anyString());
+    }
+
+    @Test
+    @DisplayName("Deve salvar livros em lote ignorando isbns duplicados.")
+    void saveAllBooksTest() {
+        Book existing = Book.builder().isbn("1").title("Existente").author("Fulano").build();
+        Book first = Book.builder().isbn("2").title("Primeiro").author("Fulano").build();
+        Book repeated = Book.builder().isbn("2").title("Repetido").author("Fulano").build();
+        Book second = Book.builder().isbn("3").title("Segundo").author("Fulano").build();
+        when(repository.findExistingIsbns(Mockito.anyCollection()))
+                .thenReturn(Set.of("1"))
+                .thenReturn(Set.of());
+        when(repository.insertAll(Mockito.anyList())).thenAnswer(invocation -> {
+            List<Book> books = invocation.getArgument(0);
+            books.forEach(book -> book.setId(Long.valueOf(book.getIsbn())));
+            return books;
+        });
+
+        List<BookImportResult> results = service.saveAll(List.of(existing, first, repeated, second));
+
+        assertThat(results.size()).isEqualTo(4);
+        assertThat(results.get(0).getStatus()).isEqualTo(BookImportResult.Status.DUPLICATED);
+        assertThat(results.get(1).getStatus()).isEqualTo(BookImportResult.Status.CREATED);
+        assertThat(results.get(1).getId()).isEqualTo(2L);
+        assertThat(results.get(2).getStatus()).isEqualTo(BookImportResult.Status.DUPLICATED);
+        assertThat(results.get(2).getIndex()).isEqualTo(2);
+        assertThat(results.get(3).getStatus()).isEqualTo(BookImportResult.Status.CREATED);
+        assertThat(results.get(3).getIndex()).isEqualTo(3);
+        verify(repository, times(2)).insertAll(Mockito.anyList());
+        verify(repository, never()).save(Mockito.any(Book.class));
+    }
+
+    @Test
+    @DisplayName("Deve marcar como falha apenas os livros do bloco que não pôde ser gravado.")
+    void saveAllBooksWithFailedChunkTest() {
+        Book first = Book.builder().isbn("1").title("Primeiro").author("Fulano").build();
+        Book second = Book.builder().isbn("2").title("Segundo").author("Fulano").build();
+        Book failed = Book.builder().isbn("3").title("Terceiro").author("Fulano").build();
+        when(repository.findExistingIsbns(Mockito.anyCollection())).thenReturn(Set.of());
+        when(repository.insertAll(Mockito.anyList()))
+                .thenAnswer(invocation -> {
+                    List<Book> books = invocation.getArgument(0);
+                    books.forEach(book -> book.setId(Long.valueOf(book.getIsbn())));
+                    return books;
+                })
+                .thenThrow(new DataIntegrityViolationException("isbn duplicado"));
+
+        List<BookImportResult> results = service.saveAll(List.of(first, second, failed));
+
+        assertThat(results.get(0).getStatus()).isEqualTo(BookImportResult.Status.CREATED);
+        assertThat(results.get(1).getStatus()).isEqualTo(BookImportResult.Status.CREATED);
+        assertThat(results.get(2).getStatus()).isEqualTo(BookImportResult.Status.FAILED);
+        assertThat(results.get(2).getIndex()).isEqualTo(2);
+        assertThat(results.get(2).getIsbn()).isEqualTo("3");
+    }
+
     private Book createValidBook() {
         return Book.builder()
                 .isbn("123")
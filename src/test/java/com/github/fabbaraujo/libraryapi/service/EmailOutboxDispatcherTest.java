@@ -0,0 +1,159 @@
+package com.github.fabbaraujo.libraryapi.service;
+
+import com.github.fabbaraujo.libraryapi.model.entity.EmailOutbox;
+import com.github.fabbaraujo.libraryapi.model.repository.EmailOutboxRepository;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.mail.internet.MimeMessage;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+class EmailOutboxDispatcherTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @MockBean
+    EmailOutboxRepository repository;
+
+    @BeforeEach
+    public void setup() {
+        Mockito.when(repository.claim(anyLong(), any(LocalDateTime.class))).thenReturn(1);
+        Mockito.when(repository.save(any(EmailOutbox.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    @DisplayName("Deve entregar os emails pendentes pelo servidor SMTP.")
+    void dispatchPendingEmailsTest() throws Exception {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(ServerSetupTest.SMTP.getPort());
+        EmailOutboxDispatcher dispatcher = createDispatcher(mailSender);
+        List<EmailOutbox> pending = IntStream.rangeClosed(1, 20)
+                .mapToObj(id -> createEmail((long) id, "fulano" + id + "@email.com,ciclano" + id + "@email.com"))
+                .toList();
+        Mockito.when(repository.findDue(any(LocalDateTime.class), any())).thenReturn(pending);
+
+        int submitted = dispatcher.dispatch();
+        dispatcher.stopExecutor();
+
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertThat(submitted).isEqualTo(20);
+        assertThat(received).hasSize(40);
+        assertThat(GreenMailUtil.getBody(received[0]).trim()).isEqualTo("Atrasado");
+        assertThat(dispatcher.getDeliveredCount()).isEqualTo(20);
+        assertThat(pending).allMatch(email -> email.getStatus() == EmailOutbox.Status.SENT);
+    }
+
+    @Test
+    @DisplayName("Deve reagendar o email com backoff quando o envio falhar.")
+    void retryWithBackoffTest() {
+        JavaMailSender mailSender = Mockito.mock(JavaMailSender.class);
+        doThrow(new MailSendException("SMTP indisponível")).when(mailSender).send(any(SimpleMailMessage.class));
+        EmailOutboxDispatcher dispatcher = createDispatcher(mailSender);
+        EmailOutbox email = createEmail(1L, "fulano@email.com");
+        email.setAttempts(1);
+
+        dispatcher.deliver(email);
+        dispatcher.stopExecutor();
+
+        assertThat(email.getStatus()).isEqualTo(EmailOutbox.Status.PENDING);
+        assertThat(email.getAttempts()).isEqualTo(2);
+        assertThat(email.getNextAttemptAt()).isAfter(LocalDateTime.now().plusSeconds(1));
+        assertThat(email.getLastError()).isEqualTo("SMTP indisponível");
+        assertThat(dispatcher.getRetriedCount()).isEqualTo(1);
+        verify(repository).save(email);
+    }
+
+    @Test
+    @DisplayName("Deve mover o email para dead letter ao atingir o máximo de tentativas.")
+    void deadLetterAfterMaxAttemptsTest() {
+        JavaMailSender mailSender = Mockito.mock(JavaMailSender.class);
+        doThrow(new MailSendException("SMTP indisponível")).when(mailSender).send(any(SimpleMailMessage.class));
+        EmailOutboxDispatcher dispatcher = createDispatcher(mailSender);
+        EmailOutbox email = createEmail(1L, "fulano@email.com");
+        email.setAttempts(2);
+
+        dispatcher.deliver(email);
+        dispatcher.stopExecutor();
+
+        assertThat(email.getStatus()).isEqualTo(EmailOutbox.Status.DEAD);
+        assertThat(dispatcher.getDeadCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve aumentar o intervalo entre tentativas exponencialmente até o limite.")
+    void backoffTest() {
+        EmailOutboxDispatcher dispatcher = createDispatcher(Mockito.mock(JavaMailSender.class));
+        dispatcher.stopExecutor();
+
+        assertThat(dispatcher.backoff(1)).isEqualTo(Duration.ofSeconds(2));
+        assertThat(dispatcher.backoff(2)).isEqualTo(Duration.ofSeconds(4));
+        assertThat(dispatcher.backoff(10)).isEqualTo(Duration.ofSeconds(60));
+    }
+
+    @Test
+    @DisplayName("Deve liberar apenas as reservas mais antigas que o prazo de entrega.")
+    void releaseExpiredClaimsTest() {
+        EmailOutboxDispatcher dispatcher = createDispatcher(Mockito.mock(JavaMailSender.class));
+        dispatcher.stopExecutor();
+        LocalDateTime before = LocalDateTime.now();
+
+        dispatcher.releaseInterruptedDeliveries();
+
+        ArgumentCaptor<LocalDateTime> claimedBefore = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(repository).releaseClaimedBefore(claimedBefore.capture());
+        assertThat(claimedBefore.getValue()).isBetween(before.minusMinutes(10), LocalDateTime.now().minusMinutes(10));
+    }
+
+    private EmailOutboxDispatcher createDispatcher(JavaMailSender mailSender) {
+        EmailOutboxDispatcher dispatcher = new EmailOutboxDispatcher(repository, mailSender);
+        ReflectionTestUtils.setField(dispatcher, "workers", 4);
+        ReflectionTestUtils.setField(dispatcher, "queueCapacity", 50);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 3);
+        ReflectionTestUtils.setField(dispatcher, "initialBackoff", 2000L);
+        ReflectionTestUtils.setField(dispatcher, "maxBackoff", 60000L);
+        ReflectionTestUtils.setField(dispatcher, "claimLease", 600000L);
+        dispatcher.startExecutor();
+        return dispatcher;
+    }
+
+    private EmailOutbox createEmail(Long id, String recipients) {
+        return EmailOutbox.builder()
+                .id(id)
+                .sender("mail@mail-api.com")
+                .subject("Livro com empréstimo atrasado.")
+                .text("Atrasado")
+                .recipients(recipients)
+                .status(EmailOutbox.Status.PENDING)
+                .attempts(0)
+                .nextAttemptAt(LocalDateTime.now())
+                .build();
+    }
+}
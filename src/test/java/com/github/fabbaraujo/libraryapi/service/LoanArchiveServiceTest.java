@@ -0,0 +1,51 @@
+package com.github.fabbaraujo.libraryapi.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+class LoanArchiveServiceTest {
+
+    LoanArchiveService service;
+
+    SimpleMeterRegistry registry;
+
+    @MockBean
+    LoanService loanService;
+
+    @BeforeEach
+    public void setup() {
+        this.registry = new SimpleMeterRegistry();
+        this.service = new LoanArchiveService(loanService, registry);
+        ReflectionTestUtils.setField(service, "minAgeDays", 30);
+        ReflectionTestUtils.setField(service, "batchSize", 2);
+    }
+
+    @Test
+    @DisplayName("Deve arquivar os empréstimos devolvidos em lotes até não restar nenhum.")
+    void archiveReturnedLoansInBatchesTest() {
+        LocalDate before = LocalDate.now().minusDays(30);
+        Mockito.when(loanService.archiveReturned(before, 2)).thenReturn(2, 2, 1, 0);
+
+        long archived = service.archiveReturnedLoans();
+
+        assertThat(archived).isEqualTo(5);
+        verify(loanService, times(4)).archiveReturned(before, 2);
+        assertThat(registry.counter("library.loans.archived").count()).isEqualTo(5);
+        assertThat(registry.timer("library.loans.archive.job", "outcome", "SUCCESS").count()).isEqualTo(1);
+    }
+}
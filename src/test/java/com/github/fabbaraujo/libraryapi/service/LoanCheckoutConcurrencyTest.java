@@ -0,0 +1,92 @@
+package com.github.fabbaraujo.libraryapi.service;
+
+import com.github.fabbaraujo.libraryapi.exception.BusinessException;
+import com.github.fabbaraujo.libraryapi.model.entity.Book;
+import com.github.fabbaraujo.libraryapi.model.entity.Loan;
+import com.github.fabbaraujo.libraryapi.model.repository.BookRepository;
+import com.github.fabbaraujo.libraryapi.model.repository.LoanRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@SpringBootTest
+class LoanCheckoutConcurrencyTest {
+
+    private static final int BOOKS = 10;
+    private static final int CHECKOUTS_PER_BOOK = 40;
+    private static final int THREADS = 32;
+
+    @Autowired
+    LoanService loanService;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @AfterEach
+    void tearDown() {
+        loanRepository.deleteAll();
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Deve emprestar cada livro uma única vez sob centenas de empréstimos concorrentes.")
+    void concurrentCheckoutTest() throws Exception {
+        List<Book> books = bookRepository.saveAll(IntStream.range(0, BOOKS)
+                .mapToObj(i -> Book.builder().isbn("concorrente-" + i).title("Livro " + i).author("Fulano").build())
+                .toList());
+        AtomicInteger loaned = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        List<Future<?>> checkouts = new ArrayList<>();
+        for (int i = 0; i < BOOKS * CHECKOUTS_PER_BOOK; i++) {
+            Book book = books.get(i % BOOKS);
+            String customer = "Cliente " + i;
+            checkouts.add(executor.submit(() -> {
+                start.await();
+                try {
+                    loanService.save(Loan.builder().book(book).customer(customer).loanDate(LocalDate.now()).build());
+                    loaned.incrementAndGet();
+                } catch (BusinessException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        long startedAt = System.nanoTime();
+        start.countDown();
+        for (Future<?> checkout : checkouts) {
+            checkout.get(60, TimeUnit.SECONDS);
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        executor.shutdown();
+        log.info("{} checkouts in {} ms ({} loaned, {} rejected)",
+                checkouts.size(), elapsedMillis, loaned.get(), rejected.get());
+
+        assertThat(loaned.get()).isEqualTo(BOOKS);
+        assertThat(rejected.get()).isEqualTo(BOOKS * (CHECKOUTS_PER_BOOK - 1));
+        assertThat(loanRepository.count()).isEqualTo(BOOKS);
+        books.forEach(book -> assertThat(bookRepository.findById(book.getId()).map(Book::getAvailable)).contains(false));
+    }
+}
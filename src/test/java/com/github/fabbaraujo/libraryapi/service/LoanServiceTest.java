@@ -1,27 +1,39 @@
 package com.github.fabbaraujo.libraryapi.service;
 
 import com.github.fabbaraujo.libraryapi.api.request.LoanFilterRequest;
+import com.github.fabbaraujo.libraryapi.api.response.LoanResponse;
+import com.github.fabbaraujo.libraryapi.api.response.LoanReturnResult;
 import com.github.fabbaraujo.libraryapi.exception.BusinessException;
 import com.github.fabbaraujo.libraryapi.model.entity.Book;
 import com.github.fabbaraujo.libraryapi.model.entity.Loan;
+import com.github.fabbaraujo.libraryapi.model.repository.BookRepository;
+import com.github.fabbaraujo.libraryapi.model.repository.JobCheckpointRepository;
+import com.github.fabbaraujo.libraryapi.model.repository.LoanHistoryRepository;
 import com.github.fabbaraujo.libraryapi.model.repository.LoanRepository;
 import com.github.fabbaraujo.libraryapi.service.impl.LoanServiceImpl;
+import com.github.fabbaraujo.libraryapi.service.index.LoanDueIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.catchThrowable;
@@ -33,12 +45,32 @@ class LoanServiceTest {
 
     LoanService service;
 
+    LoanDueIndex dueIndex;
+
+    ConcurrentMapCacheManager cacheManager;
+
+    BookCache bookCache;
+
     @MockBean
     LoanRepository repository;
 
+    @MockBean
+    BookRepository bookRepository;
+
+    @MockBean
+    LoanHistoryRepository historyRepository;
+
+    @MockBean
+    JobCheckpointRepository checkpointRepository;
+
     @BeforeEach
     public void setup() {
-        this.service = new LoanServiceImpl(repository);
+        this.dueIndex = new LoanDueIndex(repository, checkpointRepository, 86400000, 1000);
+        this.cacheManager = new ConcurrentMapCacheManager();
+        this.bookCache = new BookCache(cacheManager);
+        this.service = new LoanServiceImpl(repository, bookRepository, historyRepository,
+                new PageCountCache(new ConcurrentMapCacheManager()), bookCache, dueIndex);
+        when(bookRepository.checkout(1L)).thenReturn(1);
     }
 
     @Test
@@ -59,7 +91,6 @@ class LoanServiceTest {
                 .customer(customer)
                 .loanDate(LocalDate.now())
                 .build();
-        when(repository.existsByBookAndNotReturned(book)).thenReturn(false);
         when(repository.save(savingLoan)).thenReturn(savedLoan);
 
         Loan loan = service.save(savingLoan);
@@ -82,7 +113,26 @@ class LoanServiceTest {
                 .customer(customer)
                 .loanDate(LocalDate.now())
                 .build();
-        when(repository.existsByBookAndNotReturned(book)).thenReturn(true);
+        when(bookRepository.checkout(1L)).thenReturn(0);
+
+        Throwable exception = catchThrowable(() -> service.save(savingLoan));
+
+        assertThat(exception).isInstanceOf(BusinessException.class).hasMessage("Book already loaned.");
+        verify(repository, never()).save(savingLoan);
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro de negócio quando outro empréstimo do livro for confirmado concorrentemente.")
+    void concurrentLoanSaveTest() {
+        Book book = Book.builder()
+                .id(1L)
+                .build();
+        Loan savingLoan = Loan.builder()
+                .book(book)
+                .customer("Fulano")
+                .loanDate(LocalDate.now())
+                .build();
+        when(bookRepository.checkout(1L)).thenThrow(new CannotAcquireLockException("Concurrent update"));
 
         Throwable exception = catchThrowable(() -> service.save(savingLoan));
 
@@ -109,41 +159,261 @@ class LoanServiceTest {
     }
 
     @Test
-    @DisplayName("Deve atualizar um empréstimo.")
-    void updateLoanTest() {
+    @DisplayName("Deve devolver um empréstimo liberando o livro.")
+    void updateReturnedTest() {
+        Loan loan = createLoan();
+        loan.setId(1L);
+        when(repository.findById(1L)).thenReturn(Optional.of(loan));
+
+        Optional<Loan> updatedLoan = service.updateReturned(1L, true);
+
+        assertThat(updatedLoan.get().getReturned()).isTrue();
+        verify(repository).save(loan);
+        verify(bookRepository).release(loan.getBook().getId());
+        assertThat(dueIndex.size()).isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("Não deve liberar o livro ao devolver novamente um empréstimo já devolvido.")
+    void updateAlreadyReturnedTest() {
         Loan loan = createLoan();
         loan.setId(1L);
         loan.setReturned(true);
+        when(repository.findById(1L)).thenReturn(Optional.of(loan));
 
-        when(repository.save(loan)).thenReturn(loan);
-        Loan updatedLoan = service.update(loan);
+        service.updateReturned(1L, true);
+
+        verify(bookRepository, never()).release(anyLong());
+        verify(repository, never()).save(any(Loan.class));
+    }
+
+    @Test
+    @DisplayName("Deve reabrir um empréstimo apenas quando o livro puder ser emprestado novamente.")
+    void reopenLoanTest() {
+        Loan loan = createLoan();
+        loan.setId(1L);
+        loan.setReturned(true);
+        when(repository.findById(1L)).thenReturn(Optional.of(loan));
+
+        service.updateReturned(1L, false);
 
-        assertThat(updatedLoan.getReturned()).isTrue();
+        assertThat(loan.getReturned()).isFalse();
+        verify(bookRepository).checkout(1L);
         verify(repository).save(loan);
+        assertThat(dueIndex.size()).isEqualTo(1);
+
+        loan.setReturned(true);
+        when(bookRepository.checkout(1L)).thenReturn(0);
+
+        Throwable exception = catchThrowable(() -> service.updateReturned(1L, false));
+
+        assertThat(exception).isInstanceOf(BusinessException.class).hasMessage("Book already loaned.");
+        assertThat(loan.getReturned()).isTrue();
     }
 
     @Test
-    @DisplayName("Deve filtrar empréstimos de acordo com as propriedades.")
-    void findLoanTest() {
-        LoanFilterRequest filterRequest = LoanFilterRequest.builder()
-                .customer("Fulano")
-                .isbn("123")
-                .build();
+    @DisplayName("Deve devolver empréstimos em lote informando o resultado de cada item.")
+    void returnAllTest() {
+        when(repository.findReturnEntriesByIdIn(List.of(1L, 2L, 3L, 1L))).thenReturn(List.of(
+                returnEntry(1L, false, 10L, "123"),
+                returnEntry(2L, true, 20L, "456")));
+        when(repository.findOpenReturnEntriesByIsbnIn(List.of("789", "000"))).thenReturn(List.of(
+                returnEntry(4L, null, 40L, "789")));
+        when(repository.markReturned(Set.of(1L, 4L))).thenReturn(2);
+        cacheBook(10L, "123");
+        cacheBook(20L, "456");
+        cacheBook(40L, "789");
+
+        List<LoanReturnResult> results = service.returnAll(List.of(1L, 2L, 3L, 1L), List.of("789", "000"));
+
+        assertThat(results.stream().map(LoanReturnResult::getStatus).toList()).isEqualTo(List.of(
+                LoanReturnResult.Status.RETURNED,
+                LoanReturnResult.Status.ALREADY_RETURNED,
+                LoanReturnResult.Status.NOT_FOUND,
+                LoanReturnResult.Status.ALREADY_RETURNED,
+                LoanReturnResult.Status.RETURNED,
+                LoanReturnResult.Status.NOT_FOUND));
+        assertThat(results.get(4).getId()).isEqualTo(4L);
+        verify(repository).markReturned(Set.of(1L, 4L));
+        verify(bookRepository).releaseAll(Set.of(10L, 40L));
+        verify(repository, never()).save(any(Loan.class));
+        assertThat(cacheManager.getCache(BookCache.BOOKS_CACHE).get(10L)).isNull();
+        assertThat(cacheManager.getCache(BookCache.BOOKS_BY_ISBN_CACHE).get("789")).isNull();
+        assertThat(cacheManager.getCache(BookCache.BOOKS_CACHE).get(20L)).isNotNull();
+        assertThat(cacheManager.getCache(BookCache.BOOKS_BY_ISBN_CACHE).get("456")).isNotNull();
+    }
+
+    private void cacheBook(Long id, String isbn) {
+        Book book = Book.builder().id(id).isbn(isbn).build();
+        bookCache.getById(id, () -> Optional.of(book));
+        bookCache.getByIsbn(isbn, () -> Optional.of(book));
+    }
+
+    @Test
+    @DisplayName("Não deve liberar livros quando os empréstimos mudarem durante a devolução em lote.")
+    void returnAllConcurrentlyChangedTest() {
+        when(repository.findReturnEntriesByIdIn(List.of(1L, 2L))).thenReturn(List.of(
+                returnEntry(1L, false, 10L, "123"),
+                returnEntry(2L, false, 20L, "456")));
+        when(repository.markReturned(Set.of(1L, 2L))).thenReturn(1);
+
+        Throwable exception = catchThrowable(() -> service.returnAll(List.of(1L, 2L), List.of()));
+
+        assertThat(exception).isInstanceOf(ConcurrencyFailureException.class);
+        verify(bookRepository, never()).releaseAll(anyCollection());
+    }
+
+    @Test
+    @DisplayName("Deve acompanhar o vencimento dos empréstimos até a devolução.")
+    void trackDueLoansTest() {
         Loan loan = createLoan();
+        loan.setId(1L);
+        loan.setLoanDate(LocalDate.now().minusDays(5));
+        when(repository.save(loan)).thenReturn(loan);
+        when(repository.findReturnEntriesByIdIn(List.of(1L))).thenReturn(List.of(returnEntry(1L, false, 1L, "123")));
+        when(repository.markReturned(Set.of(1L))).thenReturn(1);
+
+        service.save(loan);
+
+        assertThat(dueIndex.size()).isEqualTo(1);
+
+        service.returnAll(List.of(1L), List.of());
+
+        assertThat(dueIndex.size()).isEqualTo(0);
+        assertThat(dueIndex.pollDue(LocalDateTime.now().plusDays(2)).isEmpty()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Não deve executar atualizações quando nenhum empréstimo puder ser devolvido.")
+    void returnAllWithoutOpenLoansTest() {
+        List<LoanReturnResult> results = service.returnAll(List.of(), List.of("123"));
+
+        assertThat(results.get(0).getStatus()).isEqualTo(LoanReturnResult.Status.NOT_FOUND);
+        verify(repository, never()).findReturnEntriesByIdIn(anyCollection());
+        verify(repository, never()).markReturned(anyCollection());
+        verify(bookRepository, never()).releaseAll(anyCollection());
+    }
+
+    @Test
+    @DisplayName("Deve reutilizar a contagem dos empréstimos do livro entre as páginas.")
+    void getLoanResponsesByBookCachedCountTest() {
+        Book book = Book.builder().id(1L).isbn("123").build();
+        List<LoanResponse> content = List.of(LoanResponse.builder().id(1L).customer("Fulano").build());
+        when(repository.findResponsesByBook(Mockito.eq(book), Mockito.any(Pageable.class)))
+                .thenAnswer(invocation -> new SliceImpl<>(content, invocation.getArgument(1), true));
+        when(repository.countByBook(book)).thenReturn(25L);
+
+        Page<LoanResponse> first = service.getLoanResponsesByBook(book, false, PageRequest.of(0, 1));
+        Page<LoanResponse> second = service.getLoanResponsesByBook(book, false, PageRequest.of(1, 1));
+
+        assertThat(first.getTotalElements()).isEqualTo(25);
+        assertThat(second.getTotalElements()).isEqualTo(25);
+        verify(repository, times(1)).countByBook(book);
+    }
+
+    @Test
+    @DisplayName("Deve filtrar empréstimos sem contar o total quando solicitado um slice.")
+    void findLoanResponseSliceTest() {
+        LoanFilterRequest filterRequest = LoanFilterRequest.builder().customer("Fulano").build();
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        Slice<LoanResponse> slice = new SliceImpl<>(List.of(LoanResponse.builder().id(1L).build()), pageRequest, false);
+        when(repository.findResponsesByBookIsbnOrCustomer(null, "Fulano", pageRequest)).thenReturn(slice);
+
+        Slice<LoanResponse> result = service.findResponseSlice(filterRequest, pageRequest);
+
+        assertThat(result).isEqualTo(slice);
+        verify(repository, never()).countByBookIsbnOrCustomer(Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Deve buscar empréstimos no histórico quando solicitado.")
+    void findLoanResponseHistoryTest() {
+        LoanFilterRequest filterRequest = LoanFilterRequest.builder().customer("Fulano").history(true).build();
         PageRequest pageRequest = PageRequest.of(0, 10);
-        List<Loan> lista = List.of(loan);
-        Page<Loan> page = new PageImpl<>(lista, pageRequest, lista.size());
-        when(repository.findByBookIsbnOrCustomer(
-                Mockito.anyString(),
-                Mockito.anyString(),
-                Mockito.any(Pageable.class))).thenReturn(page);
-
-        Page<Loan> result = service.find(filterRequest, pageRequest);
-
-        assertThat(result.getTotalElements()).isEqualTo(1);
-        assertThat(result.getContent()).isEqualTo(lista);
-        assertThat(result.getPageable().getPageNumber()).isZero();
-        assertThat(result.getPageable().getPageSize()).isEqualTo(10);
+        Slice<LoanResponse> slice = new SliceImpl<>(List.of(LoanResponse.builder().id(1L).build()), pageRequest, false);
+        when(historyRepository.findResponsesByBookIsbnOrCustomer(null, "Fulano", pageRequest)).thenReturn(slice);
+
+        Slice<LoanResponse> result = service.findResponseSlice(filterRequest, pageRequest);
+
+        assertThat(result).isEqualTo(slice);
+        verify(repository, never()).findResponsesByBookIsbnOrCustomer(Mockito.any(), Mockito.any(), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Deve retornar os empréstimos atrasados ainda em aberto sem expor a projeção do repositório.")
+    void getOpenLateLoansTest() {
+        LoanRepository.LateLoanEntry entry = mock(LoanRepository.LateLoanEntry.class);
+        when(entry.getId()).thenReturn(1L);
+        when(entry.getCustomerEmail()).thenReturn("fulano@email.com");
+        List<LoanRepository.LateLoanEntry> entries = List.of(entry);
+        when(repository.findOpenLateLoansByIdIn(List.of(1L, 2L))).thenReturn(entries);
+
+        List<LateLoan> lateLoans = service.getOpenLateLoans(List.of(1L, 2L));
+
+        assertThat(lateLoans).isEqualTo(List.of(new LateLoan(1L, "fulano@email.com")));
+        assertThat(service.getOpenLateLoans(List.of())).isEqualTo(List.of());
+    }
+
+    @Test
+    @DisplayName("Deve arquivar um lote de empréstimos devolvidos.")
+    void archiveReturnedTest() {
+        LocalDate before = LocalDate.now().minusDays(365);
+        when(repository.findArchivableIds(before, PageRequest.of(0, 2))).thenReturn(List.of(1L, 2L));
+        when(repository.copyToArchive(List.of(1L, 2L))).thenReturn(2);
+        when(repository.deleteArchived(List.of(1L, 2L))).thenReturn(2);
+
+        int archived = service.archiveReturned(before, 2);
+
+        assertThat(archived).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro de concorrência quando um empréstimo mudar durante o arquivamento.")
+    void archiveReturnedConcurrentChangeTest() {
+        LocalDate before = LocalDate.now().minusDays(365);
+        when(repository.findArchivableIds(before, PageRequest.of(0, 2))).thenReturn(List.of(1L, 2L));
+        when(repository.copyToArchive(List.of(1L, 2L))).thenReturn(2);
+        when(repository.deleteArchived(List.of(1L, 2L))).thenReturn(1);
+
+        Throwable exception = catchThrowable(() -> service.archiveReturned(before, 2));
+
+        assertThat(exception).isInstanceOf(ConcurrencyFailureException.class);
+    }
+
+    @Test
+    @DisplayName("Não deve arquivar quando não houver empréstimos devolvidos antigos.")
+    void archiveReturnedWithoutLoansTest() {
+        LocalDate before = LocalDate.now().minusDays(365);
+        when(repository.findArchivableIds(before, PageRequest.of(0, 2))).thenReturn(List.of());
+
+        int archived = service.archiveReturned(before, 2);
+
+        assertThat(archived).isZero();
+        verify(repository, never()).copyToArchive(anyCollection());
+    }
+
+    private LoanRepository.ReturnEntry returnEntry(Long id, Boolean returned, Long bookId, String isbn) {
+        return new LoanRepository.ReturnEntry() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Boolean getReturned() {
+                return returned;
+            }
+
+            @Override
+            public Long getBookId() {
+                return bookId;
+            }
+
+            @Override
+            public String getIsbn() {
+                return isbn;
+            }
+        };
     }
 
     public Loan createLoan() {
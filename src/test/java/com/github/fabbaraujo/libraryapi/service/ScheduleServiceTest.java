@@ -0,0 +1,105 @@
+package com.github.fabbaraujo.libraryapi.service;
+
+import com.github.fabbaraujo.libraryapi.service.index.LoanDueIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+class ScheduleServiceTest {
+
+    ScheduleService service;
+
+    SimpleMeterRegistry registry;
+
+    @MockBean
+    LoanService loanService;
+
+    @MockBean
+    EmailService emailService;
+
+    @MockBean
+    LoanDueIndex dueIndex;
+
+    @BeforeEach
+    public void setup() {
+        this.registry = new SimpleMeterRegistry();
+        this.service = new ScheduleService(loanService, emailService, dueIndex, registry);
+        ReflectionTestUtils.setField(service, "message", "Atrasado");
+        ReflectionTestUtils.setField(service, "chunkSize", 3);
+        ReflectionTestUtils.setField(service, "recipientsPerMessage", 2);
+    }
+
+    @Test
+    @DisplayName("Deve enviar emails apenas para os empréstimos vencidos que continuam em aberto.")
+    void sendEmailToDueLoansTest() {
+        Mockito.when(dueIndex.pollDue(any())).thenReturn(List.of(1L, 2L, 3L, 4L, 5L));
+        Mockito.when(loanService.getOpenLateLoans(List.of(1L, 2L, 3L))).thenReturn(List.of(
+                new LateLoan(1L, "a@email.com"), new LateLoan(3L, "b@email.com")));
+        Mockito.when(loanService.getOpenLateLoans(List.of(4L, 5L))).thenReturn(List.of(
+                new LateLoan(4L, "c@email.com"), new LateLoan(5L, "c@email.com")));
+
+        service.sendEmailToLateLoans();
+
+        verify(emailService).sendEmail("Atrasado", List.of("a@email.com", "b@email.com"));
+        verify(emailService).sendEmail("Atrasado", List.of("c@email.com"));
+        assertThat(registry.counter("library.lateloans.loans").count()).isEqualTo(4);
+        assertThat(registry.counter("library.lateloans.messages").count()).isEqualTo(2);
+        assertThat(registry.timer("library.lateloans.job", "outcome", "SUCCESS").count()).isEqualTo(1);
+        verify(dueIndex).acknowledge(eq(List.of(1L, 2L, 3L)), any());
+        verify(dueIndex).acknowledge(eq(List.of(4L, 5L)), any());
+        verify(dueIndex).saveCheckpoint(any());
+    }
+
+    @Test
+    @DisplayName("Deve manter na fila os avisos cujo envio falhou.")
+    void sendEmailFailureTest() {
+        Mockito.when(dueIndex.pollDue(any())).thenReturn(List.of(1L, 2L, 3L, 4L));
+        Mockito.when(loanService.getOpenLateLoans(List.of(1L, 2L, 3L))).thenReturn(List.of(new LateLoan(1L, "a@email.com")));
+        Mockito.when(loanService.getOpenLateLoans(List.of(4L))).thenReturn(List.of(new LateLoan(4L, "b@email.com")));
+        Mockito.doThrow(new IllegalStateException("smtp indisponível"))
+                .when(emailService).sendEmail("Atrasado", List.of("b@email.com"));
+
+        Throwable exception = catchThrowable(() -> service.sendEmailToLateLoans());
+
+        assertThat(exception).isInstanceOf(IllegalStateException.class);
+        verify(dueIndex).acknowledge(eq(List.of(1L, 2L, 3L)), any());
+        verify(dueIndex, never()).acknowledge(eq(List.of(4L)), any());
+        verify(dueIndex, never()).saveCheckpoint(any());
+        assertThat(registry.timer("library.lateloans.job", "outcome", "ERROR").count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Não deve consultar a base quando nenhum empréstimo venceu.")
+    void noDueLoansTest() {
+        Mockito.when(dueIndex.pollDue(any())).thenReturn(List.of());
+
+        service.sendEmailToLateLoans();
+
+        verify(loanService, never()).getOpenLateLoans(anyCollection());
+        verify(emailService, never()).sendEmail(anyString(), anyList());
+    }
+
+    @Test
+    @DisplayName("Deve reconciliar a fila de vencimentos com a base.")
+    void reconcileDueLoansTest() {
+        service.reconcileDueLoans();
+
+        verify(dueIndex).reconcile();
+    }
+}
@@ -0,0 +1,92 @@
+package com.github.fabbaraujo.libraryapi.service.index;
+
+import com.github.fabbaraujo.libraryapi.model.entity.Book;
+import com.github.fabbaraujo.libraryapi.model.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+class BookIsbnIndexTest {
+
+    BookIsbnIndex index;
+
+    @MockBean
+    BookRepository repository;
+
+    @BeforeEach
+    void setup() {
+        this.index = new BookIsbnIndex(repository, 1000, 0.01);
+    }
+
+    @Test
+    @DisplayName("Deve considerar qualquer isbn possível enquanto o índice não foi carregado.")
+    void notLoadedIndexTest() {
+        assertThat(index.mightContain("123")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve carregar os isbns cadastrados na base.")
+    void loadIndexTest() {
+        BookRepository.IsbnEntry entry = mock(BookRepository.IsbnEntry.class);
+        when(entry.getId()).thenReturn(1L);
+        when(entry.getIsbn()).thenReturn("123");
+        when(repository.findAllIsbnEntries()).thenReturn(List.of(entry));
+
+        index.load();
+
+        assertThat(index.mightContain("123")).isTrue();
+        assertThat(index.mightContain("321")).isFalse();
+        assertThat(index.findId("123")).contains(1L);
+    }
+
+    @Test
+    @DisplayName("Deve manter o índice consistente ao alterar e remover livros.")
+    void registerAndRemoveTest() {
+        when(repository.findAllIsbnEntries()).thenReturn(List.of());
+        index.load();
+        Book book = Book.builder().id(1L).isbn("123").build();
+
+        index.register(book);
+        book.setIsbn("456");
+        index.register(book);
+
+        assertThat(index.findId("123")).isEmpty();
+        assertThat(index.findId("456")).contains(1L);
+
+        index.remove(book);
+
+        assertThat(index.findId("456")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Não deve gerar falsos negativos no filtro de bloom.")
+    void bloomFilterWithoutFalseNegativesTest() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("isbn-" + i);
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("isbn-" + i)).isTrue();
+        }
+        long falsePositives = 0;
+        for (int i = 10_000; i < 20_000; i++) {
+            if (filter.mightContain("isbn-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives).isLessThan(300);
+    }
+}
@@ -0,0 +1,103 @@
+package com.github.fabbaraujo.libraryapi.service.index;
+
+import com.github.fabbaraujo.libraryapi.api.response.BookResponse;
+import com.github.fabbaraujo.libraryapi.model.entity.Book;
+import com.github.fabbaraujo.libraryapi.model.repository.BookRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+class BookSearchIndexTest {
+
+    BookSearchIndex index;
+
+    @MockBean
+    BookRepository repository;
+
+    @BeforeEach
+    void setup() throws IOException {
+        this.index = new BookSearchIndex(repository);
+        when(repository.streamAllResponses()).thenReturn(Stream.of(
+                new BookResponse(1L, "As Aventuras de Tom Sawyer", "Mark Twain", "111"),
+                new BookResponse(2L, "Aventuras na Amazônia", "Fulano de Tal", "222"),
+                new BookResponse(3L, "Dom Casmurro", "Machado de Assis", "333")
+        ));
+        index.load();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        index.close();
+    }
+
+    @Test
+    @DisplayName("Deve carregar o índice com os livros da base.")
+    void loadTest() {
+        assertThat(index.isLoaded()).isTrue();
+        assertThat(index.search("casmurro", null, null, PageRequest.of(0, 10)).getIds()).isEqualTo(List.of(3L));
+    }
+
+    @Test
+    @DisplayName("Deve buscar por prefixo ignorando caixa e acentuação.")
+    void prefixSearchTest() {
+        BookSearchIndex.SearchResult result = index.search("amazo", null, null, PageRequest.of(0, 10));
+
+        assertThat(result.getIds()).isEqualTo(List.of(2L));
+        assertThat(result.getTotal()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve exigir todos os termos e ordenar por relevância.")
+    void rankedSearchTest() {
+        assertThat(index.search("aventuras", null, null, PageRequest.of(0, 10)).getTotal()).isEqualTo(2);
+        assertThat(index.search("aventuras tom", null, null, PageRequest.of(0, 10)).getIds()).isEqualTo(List.of(1L));
+        assertThat(index.search("aventuras", "fulano", null, PageRequest.of(0, 10)).getIds()).isEqualTo(List.of(2L));
+    }
+
+    @Test
+    @DisplayName("Deve paginar os resultados da busca.")
+    void pagedSearchTest() {
+        BookSearchIndex.SearchResult result = index.search("aventuras", null, null, PageRequest.of(1, 1));
+
+        assertThat(result.getIds().size()).isEqualTo(1);
+        assertThat(result.getTotal()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Deve tratar curingas do isbn como caracteres literais.")
+    void isbnWildcardSearchTest() {
+        index.index(Book.builder().id(4L).title("Aventuras curingas").isbn("4*4").build());
+
+        assertThat(index.search("aventuras", null, "*", PageRequest.of(0, 10)).getIds()).isEqualTo(List.of(4L));
+        assertThat(index.search("aventuras", null, "1?1", PageRequest.of(0, 10)).getTotal()).isZero();
+        assertThat(index.search("aventuras", null, "11", PageRequest.of(0, 10)).getIds()).isEqualTo(List.of(1L));
+    }
+
+    @Test
+    @DisplayName("Deve atualizar o índice ao alterar e remover livros.")
+    void incrementalUpdateTest() {
+        index.index(Book.builder().id(3L).title("Memórias Póstumas").author("Machado de Assis").isbn("333").build());
+
+        assertThat(index.search("casmurro", null, null, PageRequest.of(0, 10)).getTotal()).isZero();
+        assertThat(index.search("memorias", null, null, PageRequest.of(0, 10)).getIds()).isEqualTo(List.of(3L));
+
+        index.remove(3L);
+
+        assertThat(index.search("memorias", null, null, PageRequest.of(0, 10)).getTotal()).isZero();
+    }
+}
@@ -0,0 +1,151 @@
+package com.github.fabbaraujo.libraryapi.service.index;
+
+import com.github.fabbaraujo.libraryapi.model.entity.JobCheckpoint;
+import com.github.fabbaraujo.libraryapi.model.repository.JobCheckpointRepository;
+import com.github.fabbaraujo.libraryapi.model.repository.LoanRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+class LoanDueIndexTest {
+
+    LoanDueIndex index;
+
+    @MockBean
+    LoanRepository repository;
+
+    @MockBean
+    JobCheckpointRepository checkpointRepository;
+
+    @BeforeEach
+    void setup() {
+        this.index = new LoanDueIndex(repository, checkpointRepository, 86400000, 2);
+        when(repository.findOpenDueEntriesAfter(any(), any())).thenReturn(List.of());
+    }
+
+    @Test
+    @DisplayName("Deve carregar os empréstimos em aberto em blocos.")
+    void loadIndexTest() {
+        LocalDate today = LocalDate.now();
+        List<LoanRepository.DueEntry> firstChunk = List.of(entry(1L, today), entry(2L, today));
+        List<LoanRepository.DueEntry> lastChunk = List.of(entry(3L, today));
+        when(repository.findOpenDueEntriesAfter(0L, PageRequest.of(0, 2))).thenReturn(firstChunk);
+        when(repository.findOpenDueEntriesAfter(2L, PageRequest.of(0, 2))).thenReturn(lastChunk);
+
+        index.load();
+
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Deve avisar o atraso no vencimento e repetir o aviso a cada intervalo até a devolução.")
+    void pollDueTest() {
+        LocalDateTime dueAt = LocalDate.now().plusDays(4).atStartOfDay();
+        index.track(1L, LocalDate.now());
+        index.track(2L, LocalDate.now().plusDays(1));
+
+        assertThat(index.pollDue(dueAt.minusSeconds(1))).isEmpty();
+        assertThat(index.pollDue(dueAt)).containsExactly(1L);
+        index.acknowledge(List.of(1L), dueAt);
+        assertThat(index.pollDue(dueAt.plusHours(1))).isEmpty();
+        assertThat(index.pollDue(dueAt.plusDays(1))).containsExactly(1L, 2L);
+        index.acknowledge(List.of(1L, 2L), dueAt.plusDays(1));
+
+        index.untrack(1L);
+
+        assertThat(index.pollDue(dueAt.plusDays(2))).containsExactly(2L);
+    }
+
+    @Test
+    @DisplayName("Deve manter os avisos vencidos enquanto o envio não for confirmado.")
+    void pollDueWithoutAcknowledgeTest() {
+        LocalDateTime dueAt = LocalDate.now().plusDays(4).atStartOfDay();
+        index.track(1L, LocalDate.now());
+
+        assertThat(index.pollDue(dueAt)).containsExactly(1L);
+        assertThat(index.pollDue(dueAt.plusHours(1))).containsExactly(1L);
+
+        index.acknowledge(List.of(1L), dueAt.plusHours(1));
+
+        assertThat(index.pollDue(dueAt.plusHours(2))).isEmpty();
+        assertThat(index.pollDue(dueAt.plusDays(1))).containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("Não deve repetir avisos já vencidos ao carregar empréstimos atrasados.")
+    void loadLateLoansTest() {
+        List<LoanRepository.DueEntry> lateLoans = List.of(entry(1L, LocalDate.now().minusDays(10)));
+        when(repository.findOpenDueEntriesAfter(0L, PageRequest.of(0, 2))).thenReturn(lateLoans);
+
+        index.load();
+
+        LocalDateTime now = LocalDateTime.now();
+        assertThat(index.pollDue(now)).isEmpty();
+        assertThat(index.pollDue(now.plusDays(1))).containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("Deve enviar após reiniciar os primeiros avisos vencidos desde o último registro.")
+    void loadFromCheckpointTest() {
+        LocalDateTime now = LocalDateTime.now();
+        when(checkpointRepository.findById("loan-due-notices"))
+                .thenReturn(Optional.of(new JobCheckpoint("loan-due-notices", now.minusDays(1))));
+        List<LoanRepository.DueEntry> openLoans = List.of(entry(1L, LocalDate.now().minusDays(4)));
+        when(repository.findOpenDueEntriesAfter(0L, PageRequest.of(0, 2))).thenReturn(openLoans);
+
+        index.load();
+
+        assertThat(index.pollDue(now)).containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("Deve registrar até quando os avisos foram enviados.")
+    void saveCheckpointTest() {
+        LocalDateTime now = LocalDateTime.now().plusMinutes(1);
+
+        index.saveCheckpoint(now);
+
+        verify(checkpointRepository).save(new JobCheckpoint("loan-due-notices", now));
+    }
+
+    @Test
+    @DisplayName("Deve remover na reconciliação os empréstimos que não estão mais em aberto.")
+    void reconcileTest() {
+        index.track(1L, LocalDate.now());
+        index.track(2L, LocalDate.now());
+        List<LoanRepository.DueEntry> openLoans = List.of(entry(2L, LocalDate.now()), entry(3L, LocalDate.now()));
+        when(repository.findOpenDueEntriesAfter(eq(0L), any())).thenReturn(openLoans);
+
+        int open = index.reconcile();
+
+        assertThat(open).isEqualTo(2);
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.pollDue(LocalDate.now().plusDays(4).atStartOfDay())).containsExactly(2L, 3L);
+    }
+
+    private LoanRepository.DueEntry entry(Long id, LocalDate loanDate) {
+        LoanRepository.DueEntry entry = mock(LoanRepository.DueEntry.class);
+        when(entry.getId()).thenReturn(id);
+        when(entry.getLoanDate()).thenReturn(loanDate);
+        return entry;
+    }
+}